@@ -0,0 +1,61 @@
+#!/usr/bin/env bash
+# Measures the time from JVM launch to the first successful request, for the plain jar
+# and for the extracted jar with Spring AOT and the AppCDS archive built by the cds profile.
+#
+# Usage: ./mvnw -Pcds package -DskipTests && scripts/startup-benchmark.sh [runs] [port]
+#
+# The warm-up is disabled so the numbers do not depend on reaching the ILP REST API.
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${2:-18080}"
+TARGET="$(cd "$(dirname "$0")/../target" && pwd)"
+JAR="$(ls "$TARGET"/PizzaDrone-*.jar | grep -v -- '-plain' | head -n 1)"
+CDS_DIR="$TARGET/cds"
+APP_ARGS=(--server.port="$PORT" --pizzadrone.warmup.enabled=false)
+
+if [[ ! -f "$CDS_DIR/application.jsa" ]]; then
+    echo "No CDS archive in $CDS_DIR, build with ./mvnw -Pcds package first" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Start the application with the given JVM arguments and print the milliseconds until /uuid answers
+time_to_first_request() {
+    local start pid elapsed
+    start="$(now_ms)"
+    java "$@" "${APP_ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf "http://localhost:$PORT/uuid" > /dev/null; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "Application exited before answering" >&2
+            return 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed"
+}
+
+benchmark() {
+    local name="$1"
+    shift
+    local total=0 elapsed
+    for ((i = 1; i <= RUNS; i++)); do
+        elapsed="$(time_to_first_request "$@")"
+        total=$(( total + elapsed ))
+        echo "$name run $i: ${elapsed} ms"
+    done
+    echo "$name average: $(( total / RUNS )) ms"
+}
+
+benchmark "jar" -jar "$JAR"
+(cd "$CDS_DIR" && benchmark "aot+cds" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+    -jar "$(basename "$JAR")")
@@ -1,22 +1,180 @@
 package com.ilp.pizzadrone.config;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.service.HttpReferenceDataSource;
+import com.ilp.pizzadrone.service.JsonDirectoryReferenceDataSource;
+import com.ilp.pizzadrone.service.ReferenceDataSource;
+import com.ilp.pizzadrone.service.ReferenceSnapshotFile;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Configuration class for the application
- * Contains the bean definition for the REST template, which is used to make REST API calls
+ * Contains the bean definition for the REST template, which is used to make REST API calls,
+ * the executors used by the path planner and the order stream, and the reference data source.
+ * Also enables the scheduled refresh of the reference data
  */
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     /**
-     * Creates a new REST template bean
+     * Creates a new REST template bean backed by a pooled JDK HttpClient
+     *
+     * @param connectTimeout the longest time to wait for a connection to the REST API
+     * @param readTimeout the longest time to wait for a response from the REST API
+     */
+    @Bean
+    public RestTemplate restTemplate(@Value("${pizzadrone.api.connect-timeout:2s}") Duration connectTimeout,
+                                     @Value("${pizzadrone.api.read-timeout:5s}") Duration readTimeout) {
+        RestTemplate restTemplate = new RestTemplate(createRequestFactory(connectTimeout, readTimeout));
+        restTemplate.getInterceptors().add(new GzipDecompressingInterceptor());
+        return restTemplate;
+    }
+
+    /**
+     * Creates a request factory on top of a JDK HttpClient.
+     * The client keeps connections alive and reuses them across requests,
+     * and prefers HTTP/2 while falling back to HTTP/1.1 for servers which do not support it.
+     *
+     * @param connectTimeout the longest time to wait for a connection
+     * @param readTimeout the longest time to wait for a response
+     * @return the request factory
+     */
+    public static ClientHttpRequestFactory createRequestFactory(Duration connectTimeout, Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return requestFactory;
+    }
+
+    /**
+     * Creates the bounded executor on which the portfolio path planner races its search strategies.
+     * When all threads are busy and the queue is full new strategies are rejected,
+     * and the planner falls back to plain A* on its own thread.
+     *
+     * @param threads the number of search threads, 0 means one per available processor
+     * @param queueCapacity the number of searches which may wait for a free thread
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pathSearchExecutor(
+            @Value("${pizzadrone.path.portfolio.threads:0}") int threads,
+            @Value("${pizzadrone.path.portfolio.queue-capacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "path-search-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates the bulkhead executor every delivery path search runs on.
+     * Request threads are virtual threads, so the number of concurrent requests is not bounded by a thread pool.
+     * This executor bounds the CPU-heavy path planning instead: when all threads are busy and the queue is full
+     * new searches are rejected, and cheap endpoints keep their share of the CPU.
+     * By default one processor is left free of planning, so saturated planning never takes every core.
+     *
+     * @param threads the number of planning threads, 0 means one less than the available processors, at least one
+     * @param queueCapacity the number of searches which may wait for a free thread
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pathPlanningExecutor(
+            @Value("${pizzadrone.path.planning.threads:0}") int threads,
+            @Value("${pizzadrone.path.planning.queue-capacity:16}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "path-planning-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates the executor orders from the order stream are validated on.
+     * When all threads are busy and the queue is full the order is validated on the reading thread instead,
+     * which slows reading down to the pace of validation.
+     *
+     * @param threads the number of validation threads, 0 means one per available processor
+     * @param queueCapacity the number of orders which may wait for a free thread
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService orderValidationExecutor(
+            @Value("${pizzadrone.orders.stream.threads:0}") int threads,
+            @Value("${pizzadrone.orders.stream.queue-capacity:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-validation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Creates the local file the last loaded reference data is kept in
+     *
+     * @param file the path of the snapshot file, empty to keep no snapshot file
+     */
+    @Bean
+    public ReferenceSnapshotFile referenceSnapshotFile(@Value("${pizzadrone.reference.snapshot-file:}") String file) {
+        return new ReferenceSnapshotFile(file.isBlank() ? null : Path.of(file));
+    }
+
+    /**
+     * Creates the source the reference data is read from.
+     * The source is chosen when the application starts, so the choice does not depend on build-time conditions.
+     *
+     * @param source the kind of source: http, directory or snapshot
+     * @param directory the directory holding the JSON files for the directory source
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ReferenceDataSource referenceDataSource(@Value("${pizzadrone.reference.source:http}") String source,
+                                                   @Value("${pizzadrone.reference.directory:}") String directory,
+                                                   RetrieveAPIService retrieveAPIService,
+                                                   ObjectMapper objectMapper,
+                                                   ReferenceSnapshotFile referenceSnapshotFile) {
+        return switch (source) {
+            case "http" -> new HttpReferenceDataSource(retrieveAPIService);
+            case "directory" -> new JsonDirectoryReferenceDataSource(Path.of(directory), objectMapper);
+            case "snapshot" -> referenceSnapshotFile;
+            default -> throw new IllegalArgumentException("Unknown reference data source: " + source);
+        };
     }
 }
@@ -0,0 +1,81 @@
+package com.ilp.pizzadrone.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Interceptor which asks the server for gzip-compressed responses and decompresses them.
+ * The JDK HttpClient does not handle content encoding by itself.
+ */
+public class GzipDecompressingInterceptor implements ClientHttpRequestInterceptor {
+    private static final String GZIP = "gzip";
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        ClientHttpResponse response = execution.execute(request, body);
+
+        // Leave uncompressed responses untouched
+        if (!GZIP.equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+            return response;
+        }
+        return new DecompressedResponse(response);
+    }
+
+    /**
+     * A response whose body is decompressed while it is read
+     */
+    private static final class DecompressedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse response;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        private DecompressedResponse(ClientHttpResponse response) {
+            this.response = response;
+
+            // The body handed to the caller is neither compressed nor of the transferred length
+            HttpHeaders decompressedHeaders = new HttpHeaders();
+            decompressedHeaders.putAll(response.getHeaders());
+            decompressedHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+            decompressedHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(decompressedHeaders);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(response.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
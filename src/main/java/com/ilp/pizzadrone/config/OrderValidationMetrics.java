@@ -0,0 +1,45 @@
+package com.ilp.pizzadrone.config;
+
+import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.validation.OrderRuleChain;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for the order validation rules: how often each rule runs and rejects an order, and what it costs
+ */
+@Component
+public class OrderValidationMetrics implements MeterBinder {
+    private final OrderService orderService;
+
+    /**
+     * Constructor for the OrderValidationMetrics
+     */
+    public OrderValidationMetrics(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (OrderRuleChain.RuleStats stats : orderService.getRuleChain().getStats()) {
+            FunctionCounter.builder("pizzadrone.orders.rule.evaluations", stats,
+                            OrderRuleChain.RuleStats::getEvaluations)
+                    .description("Orders the validation rule has run on")
+                    .tag("rule", stats.getName())
+                    .register(registry);
+            FunctionCounter.builder("pizzadrone.orders.rule.rejections", stats,
+                            OrderRuleChain.RuleStats::getRejections)
+                    .description("Orders the validation rule has rejected")
+                    .tag("rule", stats.getName())
+                    .register(registry);
+            Gauge.builder("pizzadrone.orders.rule.cost", stats, OrderRuleChain.RuleStats::getAverageCostNanos)
+                    .description("Average time the validation rule takes")
+                    .baseUnit("nanoseconds")
+                    .tag("rule", stats.getName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ilp.pizzadrone.config;
+
+import com.ilp.pizzadrone.service.PathAdmissionController;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for the admission control of delivery path searches
+ */
+@Component
+public class PathPlanningMetrics implements MeterBinder {
+    private final PathAdmissionController pathAdmissionController;
+
+    /**
+     * Constructor for the PathPlanningMetrics
+     */
+    public PathPlanningMetrics(PathAdmissionController pathAdmissionController) {
+        this.pathAdmissionController = pathAdmissionController;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pizzadrone.path.admission.cost", pathAdmissionController,
+                        PathAdmissionController::getCostInUse)
+                .description("Estimated cost of the path searches running now")
+                .register(registry);
+        Gauge.builder("pizzadrone.path.admission.queued", pathAdmissionController,
+                        PathAdmissionController::getQueued)
+                .description("Path searches waiting for admission")
+                .register(registry);
+        FunctionCounter.builder("pizzadrone.path.admission.rejected", pathAdmissionController,
+                        PathAdmissionController::getRejected)
+                .description("Path searches rejected because path planning was at capacity")
+                .register(registry);
+    }
+}
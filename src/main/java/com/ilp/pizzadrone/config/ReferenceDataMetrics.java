@@ -0,0 +1,54 @@
+package com.ilp.pizzadrone.config;
+
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import com.ilp.pizzadrone.util.CircuitBreaker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metrics for the REST API circuit breakers and the reference data snapshot.
+ * The breaker state is reported as 0 for closed, 1 for half-open and 2 for open.
+ */
+@Component
+public class ReferenceDataMetrics implements MeterBinder {
+    private final RetrieveAPIService retrieveAPIService;
+    private final ReferenceDataLoader referenceDataLoader;
+
+    /**
+     * Constructor for the ReferenceDataMetrics
+     */
+    public ReferenceDataMetrics(RetrieveAPIService retrieveAPIService, ReferenceDataLoader referenceDataLoader) {
+        this.retrieveAPIService = retrieveAPIService;
+        this.referenceDataLoader = referenceDataLoader;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CircuitBreaker breaker : retrieveAPIService.getCircuitBreakers()) {
+            Gauge.builder("pizzadrone.api.circuit.state", breaker, b -> b.getState().ordinal())
+                    .description("State of the REST API circuit breaker: 0 closed, 1 half-open, 2 open")
+                    .tag("endpoint", breaker.getName())
+                    .register(registry);
+            FunctionCounter.builder("pizzadrone.api.circuit.rejected", breaker, CircuitBreaker::getRejectedCalls)
+                    .description("Calls to the REST API which failed fast because the circuit breaker was open")
+                    .tag("endpoint", breaker.getName())
+                    .register(registry);
+        }
+
+        Gauge.builder("pizzadrone.reference.version", referenceDataLoader, loader -> {
+                    ReferenceSnapshot snapshot = loader.getLoadedSnapshot();
+                    return snapshot == null ? 0 : snapshot.version();
+                })
+                .description("Version of the reference data snapshot in use")
+                .register(registry);
+        Gauge.builder("pizzadrone.reference.age", referenceDataLoader, ReferenceDataLoader::getSnapshotAgeMillis)
+                .description("Time since the reference data snapshot in use was loaded")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+}
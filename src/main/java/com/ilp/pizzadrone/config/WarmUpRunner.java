@@ -0,0 +1,144 @@
+package com.ilp.pizzadrone.config;
+
+import com.ilp.pizzadrone.dto.CreditCardInformation;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.service.CalcDeliveryPathService;
+import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.util.CalcPathUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
+import static com.ilp.pizzadrone.constant.SystemConstants.ORDER_CHARGE_IN_PENCE;
+
+/**
+ * Warm-up stage run once the application has started and before it reports itself ready.
+ * Loads the reference data snapshot, caches the path from every restaurant and runs synthetic order validations
+ * and one path search per restaurant, so the first real requests find warm caches and compiled code.
+ * The synthetic orders are neither cached nor counted in the rule chain statistics.
+ * The readiness state only changes to accepting traffic after all application runners have finished.
+ * A failing step is logged and skipped, so the warm-up never stops the application from starting.
+ */
+@Component
+public class WarmUpRunner implements ApplicationRunner {
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.ofPattern("MM/yy");
+    private static final Logger log = LoggerFactory.getLogger(WarmUpRunner.class);
+
+    private final ReferenceDataLoader referenceDataLoader;
+    private final CalcDeliveryPathService calcDeliveryPathService;
+    private final OrderService orderService;
+    private final CalcPathUtils calcPathUtils;
+    private final boolean enabled;
+    private final int iterations;
+
+    /**
+     * Constructor for the WarmUpRunner
+     *
+     * @param enabled whether to run the warm-up
+     * @param iterations the number of synthetic validations to run, and the most path searches (one per restaurant)
+     */
+    public WarmUpRunner(ReferenceDataLoader referenceDataLoader,
+                        CalcDeliveryPathService calcDeliveryPathService,
+                        OrderService orderService,
+                        CalcPathUtils calcPathUtils,
+                        @Value("${pizzadrone.warmup.enabled:true}") boolean enabled,
+                        @Value("${pizzadrone.warmup.iterations:20}") int iterations) {
+        this.referenceDataLoader = referenceDataLoader;
+        this.calcDeliveryPathService = calcDeliveryPathService;
+        this.orderService = orderService;
+        this.calcPathUtils = calcPathUtils;
+        this.enabled = enabled;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        long startNs = System.nanoTime();
+        ReferenceSnapshot snapshot;
+        try {
+            snapshot = referenceDataLoader.getSnapshot();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up skipped: {}", e.getMessage());
+            return;
+        }
+
+        int routes = 0;
+        try {
+            routes = calcDeliveryPathService.precomputeRoutes();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up route precomputation failed: {}", e.toString());
+        }
+
+        List<Restaurant> restaurants = snapshot.restaurants().stream()
+                .filter(restaurant -> restaurant.location() != null
+                        && restaurant.menu() != null && restaurant.menu().length > 0
+                        && restaurant.openingDays() != null && restaurant.openingDays().length > 0)
+                .toList();
+
+        // Synthetic orders are not cached and not counted in the rule statistics, so real orders are unaffected
+        int validations = 0;
+        for (int i = 0; i < iterations && !restaurants.isEmpty(); i++) {
+            try {
+                orderService.validateOrderUnrecorded(syntheticOrder(restaurants.get(i % restaurants.size()), i));
+                validations++;
+            } catch (RuntimeException e) {
+                log.warn("Warm-up validation {} failed: {}", i, e.toString());
+            }
+        }
+
+        // One search per restaurant, bypassing the route cache so the search code itself is exercised;
+        // more would repeat the same searches and only delay readiness
+        int searches = 0;
+        LngLat appletonTowerLocation = new LngLat(APPLETON_LNG, APPLETON_LAT);
+        for (Restaurant restaurant : restaurants.subList(0, Math.min(iterations, restaurants.size()))) {
+            try {
+                calcPathUtils.calculatePath(restaurant.location(), appletonTowerLocation,
+                        snapshot.preparedNoFlyZones(), snapshot.preparedCentralArea());
+                searches++;
+            } catch (RuntimeException e) {
+                log.warn("Warm-up search from {} failed: {}", restaurant.name(), e.toString());
+            }
+        }
+
+        log.info("Warm-up finished: version={}, routes={}, validations={}, searches={}, tookMs={}",
+                snapshot.version(), routes, validations, searches, (System.nanoTime() - startNs) / 1_000_000);
+    }
+
+    /**
+     * Build a valid order for the first pizza of a restaurant on a day the restaurant is open
+     *
+     * @param restaurant the restaurant
+     * @param iteration the warm-up iteration, used for the order number and the card number
+     * @return the order
+     */
+    private static Order syntheticOrder(Restaurant restaurant, int iteration) {
+        LocalDate orderDate = LocalDate.now();
+        while (!Arrays.asList(restaurant.openingDays()).contains(orderDate.getDayOfWeek())) {
+            orderDate = orderDate.plusDays(1);
+        }
+
+        Pizza pizza = restaurant.menu()[0];
+        return new Order("WARMUP" + iteration, orderDate, pizza.priceInPence() + ORDER_CHARGE_IN_PENCE,
+                new Pizza[] { pizza },
+                new CreditCardInformation(String.format("4111111111%06d", iteration), orderDate.plusYears(1).format(EXPIRY_FORMAT), "123"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.ilp.pizzadrone.constant;
+
+/**
+ * This enum class is used to store the search strategies of the path planner.
+ * Each strategy is an A* search whose heuristic is scaled by a weight.
+ * A weight of w guarantees a path at most w times longer than the shortest one,
+ * while larger weights usually expand far fewer nodes.
+ */
+public enum PathSearchStrategy {
+    /**
+     * plain A*, always returns the shortest path
+     */
+    A_STAR(1.0),
+
+    /**
+     * weighted A*, trades a bounded detour for a faster search
+     */
+    WEIGHTED_A_STAR(1.5),
+
+    /**
+     * heavily weighted A*, close to a greedy best-first search
+     */
+    GREEDY(10.0);
+
+    private final double heuristicWeight;
+
+    /**
+     * Constructor for the PathSearchStrategy enum class
+     * @param heuristicWeight the weight applied to the heuristic
+     */
+    PathSearchStrategy(double heuristicWeight) {
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Get the weight applied to the heuristic
+     * @return the heuristic weight of the strategy
+     */
+    public double getHeuristicWeight() {
+        return heuristicWeight;
+    }
+}
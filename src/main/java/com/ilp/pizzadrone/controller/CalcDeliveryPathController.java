@@ -1,17 +1,32 @@
 package com.ilp.pizzadrone.controller;
 
 import com.ilp.pizzadrone.constant.OrderStatus;
+import com.ilp.pizzadrone.dto.CompactPath;
 import com.ilp.pizzadrone.dto.LngLat;
 import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.model.OrderContext;
 import com.ilp.pizzadrone.service.CalcDeliveryPathService;
 import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.util.BinaryPathEncoder;
+import com.ilp.pizzadrone.util.CompactPathUtils;
+import com.ilp.pizzadrone.util.PolylineEncoder;
+import com.ilp.pizzadrone.validation.CompactPathValidator;
 import com.ilp.pizzadrone.validation.OrderValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the CalcDeliveryPathService
@@ -22,26 +37,51 @@ public class CalcDeliveryPathController {
     private final CalcDeliveryPathService calcDeliveryPathService;
     private final OrderService orderService;
     private final OrderValidator orderValidator;
+    private final CompactPathUtils compactPathUtils;
+    private final CompactPathValidator compactPathValidator;
+    private final Duration asyncTimeout;
+    private static final Logger log = LoggerFactory.getLogger(CalcDeliveryPathController.class);
 
     /**
      * Constructor for the CalcDeliveryPathController
+     *
+     * @param asyncTimeout the deadline for the asynchronous delivery path calculation
      */
     public CalcDeliveryPathController(CalcDeliveryPathService calcDeliveryPathService,
                                       OrderService orderService,
-                                      OrderValidator orderValidator) {
+                                      OrderValidator orderValidator,
+                                      CompactPathUtils compactPathUtils,
+                                      CompactPathValidator compactPathValidator,
+                                      @Value("${pizzadrone.path.async.timeout:5s}") Duration asyncTimeout) {
         this.calcDeliveryPathService = calcDeliveryPathService;
         this.orderService = orderService;
         this.orderValidator = orderValidator;
+        this.compactPathUtils = compactPathUtils;
+        this.compactPathValidator = compactPathValidator;
+        this.asyncTimeout = asyncTimeout;
     }
 
     /**
-     * Calculate the delivery path list for the order
+     * Calculate the delivery path list for the order.
+     * Clients accepting the binary path media type get the delta-encoded binary form instead of JSON,
+     * and clients asking for the polyline encoding get an encoded polyline string.
      *
      * @param order the order
+     * @param accept the Accept header of the request
+     * @param lengthPrefixed whether the binary form starts with the number of points
+     * @param encoding the optional output encoding, only "polyline" is supported
      * @return the delivery path
      */
     @PostMapping("/calcDeliveryPath")
-    public ResponseEntity<?> calcDeliveryPath(@RequestBody Order order) {
+    public ResponseEntity<?> calcDeliveryPath(@RequestBody Order order,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestParam(defaultValue = "false") boolean lengthPrefixed,
+                                              @RequestParam(required = false) String encoding) {
+        // Check the requested encoding is supported
+        if (encoding != null && !PolylineEncoder.ENCODING_NAME.equals(encoding)) {
+            return ResponseEntity.badRequest().body("Invalid Encoding: only polyline is supported");
+        }
+
         // Validate the order
         ResponseEntity<?> validationResponse = orderValidator.validateOrderRequest(order);
 
@@ -50,8 +90,11 @@ public class CalcDeliveryPathController {
             return validationResponse;
         }
 
+        // Resolve the order once for validation and planning
+        OrderContext orderContext = orderService.resolveOrder(order);
+
         // Get the validation result
-        OrderStatus validationResult = orderService.validateOrder(order).orderStatus();
+        OrderStatus validationResult = orderService.validateOrder(orderContext).orderStatus();
 
         // Return bad request if validation fails
         if (validationResult == OrderStatus.INVALID) {
@@ -59,7 +102,148 @@ public class CalcDeliveryPathController {
         }
 
         // Calculate the delivery path
-        List<LngLat> flyPath = calcDeliveryPathService.calcDeliveryPath(order);
+        List<LngLat> flyPath = calcDeliveryPathService.calcDeliveryPath(orderContext);
+
+        // Return the encoded polyline if the client asked for it
+        if (encoding != null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(PolylineEncoder.encode(flyPath));
+        }
+
+        // Return the binary form if the client asked for it
+        if (acceptsBinaryPath(accept)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(BinaryPathEncoder.MEDIA_TYPE))
+                    .body(BinaryPathEncoder.encode(flyPath, lengthPrefixed));
+        }
+        return ResponseEntity.ok(flyPath);
+    }
+
+    /**
+     * Calculate the delivery path list for the order without holding a request thread during the search.
+     * The search is cancelled when the deadline passes before it finishes.
+     * A client disconnecting does not cancel it: the container does not reliably report a dropped connection
+     * while nothing is being written, so the deadline is what bounds the work for a client that went away.
+     *
+     * @param order the order
+     * @return the deferred delivery path, or 503 Service Unavailable if the deadline passed
+     */
+    @PostMapping("/calcDeliveryPathAsync")
+    public DeferredResult<ResponseEntity<?>> calcDeliveryPathAsync(@RequestBody Order order) {
+        DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>(asyncTimeout.toMillis());
+
+        // Validate the order
+        ResponseEntity<?> validationResponse = orderValidator.validateOrderRequest(order);
+
+        // Return bad request if validation fails
+        if (validationResponse != null) {
+            deferredResult.setResult(validationResponse);
+            return deferredResult;
+        }
+
+        // Resolve the order once for validation and planning
+        OrderContext orderContext = orderService.resolveOrder(order);
+
+        // Get the validation result
+        OrderStatus validationResult = orderService.validateOrder(orderContext).orderStatus();
+
+        // Return bad request if validation fails
+        if (validationResult == OrderStatus.INVALID) {
+            deferredResult.setResult(ResponseEntity.badRequest().body("Invalid order"));
+            return deferredResult;
+        }
+
+        // Start the search and stop it once the deadline passes
+        CompletableFuture<List<LngLat>> flyPath = calcDeliveryPathService.calcDeliveryPathAsync(orderContext);
+        deferredResult.onTimeout(() -> {
+            flyPath.cancel(true);
+            log.warn("calcDeliveryPathAsync deadline of {} ms passed, search cancelled", asyncTimeout.toMillis());
+            deferredResult.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Service Unavailable: path calculation exceeded the deadline"));
+        });
+        // Only raised for errors the container notices, such as a failed async dispatch, not for every disconnect
+        deferredResult.onError(error -> flyPath.cancel(true));
+
+        flyPath.whenComplete((path, error) -> {
+            if (error == null) {
+                deferredResult.setResult(ResponseEntity.ok(path));
+            } else if (!(error instanceof CancellationException)) {
+                deferredResult.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+        return deferredResult;
+    }
+
+    /**
+     * Calculate the delivery path for the order as a start point and a list of move codes
+     *
+     * @param order the order
+     * @return the compact delivery path
+     */
+    @PostMapping("/calcDeliveryPathCompact")
+    public ResponseEntity<?> calcDeliveryPathCompact(@RequestBody Order order) {
+        // Validate the order
+        ResponseEntity<?> validationResponse = orderValidator.validateOrderRequest(order);
+
+        // Return bad request if validation fails
+        if (validationResponse != null) {
+            return validationResponse;
+        }
+
+        // Resolve the order once for validation and planning
+        OrderContext orderContext = orderService.resolveOrder(order);
+
+        // Get the validation result
+        OrderStatus validationResult = orderService.validateOrder(orderContext).orderStatus();
+
+        // Return bad request if validation fails
+        if (validationResult == OrderStatus.INVALID) {
+            return ResponseEntity.badRequest().body("Invalid order");
+        }
+
+        // Calculate the compact delivery path
+        CompactPath compactPath = calcDeliveryPathService.calcCompactDeliveryPath(orderContext);
+        return ResponseEntity.ok(compactPath);
+    }
+
+    /**
+     * Expand a compact delivery path back into the list of positions
+     *
+     * @param compactPath the compact delivery path
+     * @return the delivery path
+     */
+    @PostMapping("/expandDeliveryPath")
+    public ResponseEntity<?> expandDeliveryPath(@RequestBody CompactPath compactPath) {
+        // Validate the compact path
+        ResponseEntity<?> validationResponse = compactPathValidator.validateCompactPath(compactPath);
+
+        // Return bad request if validation fails
+        if (validationResponse != null) {
+            return validationResponse;
+        }
+
+        // Replay the moves from the start position
+        List<LngLat> flyPath = compactPathUtils.expand(compactPath);
         return ResponseEntity.ok(flyPath);
     }
+
+    /**
+     * Check if the Accept header explicitly asks for the binary path media type
+     * @param accept the Accept header of the request
+     * @return true if the binary form should be returned, false otherwise
+     */
+    private static boolean acceptsBinaryPath(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+
+        MediaType binaryPath = MediaType.parseMediaType(BinaryPathEncoder.MEDIA_TYPE);
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(binaryPath::equalsTypeAndSubtype);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
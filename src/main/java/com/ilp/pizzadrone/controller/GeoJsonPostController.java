@@ -3,15 +3,22 @@ package com.ilp.pizzadrone.controller;
 import com.ilp.pizzadrone.constant.OrderStatus;
 import com.ilp.pizzadrone.dto.LngLat;
 import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.model.OrderContext;
 import com.ilp.pizzadrone.service.CalcDeliveryPathService;
 import com.ilp.pizzadrone.service.GeoJsonService;
 import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.util.PolylineEncoder;
 import com.ilp.pizzadrone.validation.OrderValidator;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -38,13 +45,28 @@ public class GeoJsonPostController {
     }
 
     /**
-     * Calculate the delivery path for the order and return it as GeoJSON
+     * Calculate the delivery path for the order and return it as GeoJSON,
+     * or as an encoded polyline string if the client asks for the polyline encoding.
+     * The GeoJSON is streamed to the client instead of being built in memory.
+     * Spring picks how to write the result from its runtime type: an error response is written directly,
+     * while the streamed body is written asynchronously, with its content type set on the response.
      *
      * @param order the order
-     * @return the delivery path as GeoJSON
+     * @param encoding the optional output encoding, only "polyline" is supported
+     * @param includeZones whether to add the no-fly zones and the central area to the GeoJSON
+     * @param response the response the streamed body is written to
+     * @return the error response if the encoding or the order is invalid, otherwise the streamed GeoJSON or polyline
      */
     @PostMapping("/calcDeliveryPathAsGeoJson")
-    public ResponseEntity<?> calcDeliveryPathAsGeoJson(@RequestBody Order order) {
+    public Object calcDeliveryPathAsGeoJson(@RequestBody Order order,
+                                            @RequestParam(required = false) String encoding,
+                                            @RequestParam(defaultValue = "false") boolean includeZones,
+                                            HttpServletResponse response) {
+        // Check the requested encoding is supported
+        if (encoding != null && !PolylineEncoder.ENCODING_NAME.equals(encoding)) {
+            return ResponseEntity.badRequest().body("Invalid Encoding: only polyline is supported");
+        }
+
         // Validate the order
         ResponseEntity<?> validationResponse = orderValidator.validateOrderRequest(order);
 
@@ -53,8 +75,11 @@ public class GeoJsonPostController {
             return validationResponse;
         }
 
+        // Resolve the order once for validation and planning
+        OrderContext orderContext = orderService.resolveOrder(order);
+
         // Get the validation result
-        OrderStatus validationResult = orderService.validateOrder(order).orderStatus();
+        OrderStatus validationResult = orderService.validateOrder(orderContext).orderStatus();
 
         // Return bad request if validation fails
         if (validationResult == OrderStatus.INVALID) {
@@ -62,12 +87,18 @@ public class GeoJsonPostController {
         }
 
         // Calculate the delivery path
-        List<LngLat> flyPath = calcDeliveryPathService.calcDeliveryPath(order);
+        List<LngLat> flyPath = calcDeliveryPathService.calcDeliveryPath(orderContext);
 
-        // Convert the path to GeoJSON format
-        String geoJson = geoJsonService.convertToGeoJson(flyPath);
+        // Return the encoded polyline if the client asked for it
+        if (encoding != null) {
+            byte[] polyline = PolylineEncoder.encode(flyPath).getBytes(StandardCharsets.UTF_8);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            return (StreamingResponseBody) out -> out.write(polyline);
+        }
 
-        // Return GeoJSON response
-        return ResponseEntity.ok(geoJson);
+        // Stream the path in GeoJSON format, with the zones it was planned around
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        return (StreamingResponseBody) out -> geoJsonService.writeGeoJson(flyPath,
+                includeZones ? orderContext.snapshot() : null, out);
     }
 }
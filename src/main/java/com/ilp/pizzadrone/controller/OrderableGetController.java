@@ -0,0 +1,38 @@
+package com.ilp.pizzadrone.controller;
+
+import com.ilp.pizzadrone.model.OrderableMenu;
+import com.ilp.pizzadrone.service.OrderService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Controller for the orderable menu
+ * This controller is responsible for handling the requests for what can be ordered on a date
+ */
+@RestController
+public class OrderableGetController {
+    private final OrderService orderService;
+
+    /**
+     * Constructor for the OrderableGetController
+     */
+    public OrderableGetController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    /**
+     * Return the restaurants open and the pizzas which can be ordered on a date
+     *
+     * @param date the optional ISO date, today if not given
+     * @return the orderable menu
+     */
+    @GetMapping("/orderable")
+    public OrderableMenu getOrderable(@RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return orderService.getOrderableMenu(date != null ? date : LocalDate.now());
+    }
+}
@@ -0,0 +1,28 @@
+package com.ilp.pizzadrone.controller;
+
+import com.ilp.pizzadrone.service.PlanningCapacityException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps path planning failures to responses for all delivery path endpoints
+ */
+@RestControllerAdvice
+public class PlanningExceptionHandler {
+
+    /**
+     * Return 503 Service Unavailable when path planning is at capacity, asking the client to retry once the work ahead of it has drained
+     *
+     * @param e the rejection
+     * @return the error response
+     */
+    @ExceptionHandler(PlanningCapacityException.class)
+    public ResponseEntity<String> handlePlanningCapacity(PlanningCapacityException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000)))
+                .body("Service Unavailable: path planning is at capacity");
+    }
+}
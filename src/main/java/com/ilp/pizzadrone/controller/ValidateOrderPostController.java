@@ -3,11 +3,20 @@ package com.ilp.pizzadrone.controller;
 import com.ilp.pizzadrone.dto.Order;
 import com.ilp.pizzadrone.model.OrderValidation;
 import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.service.OrderStreamService;
 import com.ilp.pizzadrone.validation.OrderValidator;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
 
 /**
  * Controller class for handling POST requests related to order validation.
@@ -15,16 +24,25 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 public class ValidateOrderPostController {
+    private static final String NDJSON = "application/x-ndjson";
     private final OrderService orderService;
     private final OrderValidator orderValidator;
+    private final OrderStreamService orderStreamService;
+    private final Duration streamTimeout;
 
     /**
      * Constructor for the order validation controller class
+     *
+     * @param streamTimeout the time allowed for a whole /validateOrders stream
      */
     public ValidateOrderPostController(OrderService orderService,
-                                       OrderValidator orderValidator) {
+                                       OrderValidator orderValidator,
+                                       OrderStreamService orderStreamService,
+                                       @Value("${pizzadrone.orders.stream.timeout:30m}") Duration streamTimeout) {
         this.orderService = orderService;
         this.orderValidator = orderValidator;
+        this.orderStreamService = orderStreamService;
+        this.streamTimeout = streamTimeout;
     }
 
     /**
@@ -47,4 +65,27 @@ public class ValidateOrderPostController {
         OrderValidation orderValidationResult = orderService.validateOrder(order);
         return ResponseEntity.ok(orderValidationResult);
     }
+
+    /**
+     * Validates a stream of newline-delimited JSON orders,
+     * streaming back one newline-delimited JSON validation result per order in the same order.
+     * A line which is not valid JSON ends the stream with a final line holding an error message.
+     * The stream is written asynchronously and may take up to the stream timeout,
+     * rather than the default async request timeout meant for single requests.
+     *
+     * @param request the request holding the order stream
+     * @return the streamed validation results
+     */
+    @PostMapping(value = "/validateOrders", consumes = NDJSON)
+    public ResponseEntity<StreamingResponseBody> validateOrders(HttpServletRequest request) {
+        // Applies to this request only, when the response body starts streaming
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(streamTimeout.toMillis());
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> orderStreamService.validateOrders(request.getInputStream(), out));
+    }
 }
@@ -0,0 +1,47 @@
+package com.ilp.pizzadrone.dto;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * defines a flight path by its start point and the moves taken from there.
+ * Each move is the ordinal of a CompassDirection, so the path can be replayed exactly.
+ * The moves are copied in and out, so a cached path cannot be changed by its users
+ * @param start is the first position of the path, null for the empty path
+ * @param moves is the direction code of every move in order
+ */
+public record CompactPath(LngLat start, byte[] moves) {
+    /**
+     * The path with no positions, returned when no path was found
+     */
+    public static final CompactPath EMPTY = new CompactPath(null, new byte[0]);
+
+    public CompactPath {
+        moves = moves != null ? moves.clone() : null;
+    }
+
+    /**
+     * Get the direction code of every move in order
+     * @return a copy of the moves
+     */
+    @Override
+    public byte[] moves() {
+        return moves != null ? moves.clone() : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompactPath other
+                && Objects.equals(start, other.start) && Arrays.equals(moves, other.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(start) + Arrays.hashCode(moves);
+    }
+
+    @Override
+    public String toString() {
+        return "CompactPath[start=" + start + ", moves=" + Arrays.toString(moves) + "]";
+    }
+}
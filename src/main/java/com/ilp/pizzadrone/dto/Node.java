@@ -12,6 +12,7 @@ public class Node implements Comparable<Node> {
     private final double h;
     private final double f;
     private final Node parent;
+    private final boolean insideCentralArea;
 
     /**
      * Constructor for the Node object
@@ -22,11 +23,24 @@ public class Node implements Comparable<Node> {
      * the f value of the node (g + h)
      */
     public Node(LngLat position, double g, double h, Node parent) {
+        this(position, g, h, parent, false);
+    }
+
+    /**
+     * Constructor for the Node object carrying the central area state
+     * @param position the position of the node
+     * @param g the cost of the path from the start node to the current node
+     * @param h the heuristic value of the node
+     * @param parent the parent node
+     * @param insideCentralArea whether the path to this node has entered the central area
+     */
+    public Node(LngLat position, double g, double h, Node parent, boolean insideCentralArea) {
         this.position = position;
         this.g = g;
         this.h = h;
         this.f = g + h;
         this.parent = parent;
+        this.insideCentralArea = insideCentralArea;
     }
 
     /**
@@ -69,6 +83,14 @@ public class Node implements Comparable<Node> {
         return parent;
     }
 
+    /**
+     * Check if the path to this node has entered the central area
+     * @return true if the path has entered the central area, false otherwise
+     */
+    public boolean insideCentralArea() {
+        return insideCentralArea;
+    }
+
     @Override
     public int compareTo(Node other) {
         return Double.compare(this.f, other.f);
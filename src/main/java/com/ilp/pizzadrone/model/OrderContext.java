@@ -0,0 +1,74 @@
+package com.ilp.pizzadrone.model;
+
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An order resolved once against a reference data snapshot.
+ * Validation, path planning and serialisation all read the restaurant and prices from here,
+ * so they agree on the snapshot and no step looks the pizzas up again.
+ *
+ * @param order              the order
+ * @param snapshot           the snapshot the order was resolved against
+ * @param pizzaRestaurants   the restaurant offering each pizza in the order, null where no restaurant has it;
+ *                           unmodifiable, since the context is shared by every step handling the order
+ * @param restaurant         the restaurant of the first pizza, or null if the order has no known first pizza
+ * @param singleRestaurant   whether every pizza is offered and all by the same restaurant
+ * @param pizzaTotalInPence  the sum of the pizza prices in the order, without the order charge
+ */
+public record OrderContext(Order order,
+                           ReferenceSnapshot snapshot,
+                           List<Restaurant> pizzaRestaurants,
+                           Restaurant restaurant,
+                           boolean singleRestaurant,
+                           int pizzaTotalInPence) {
+
+    /**
+     * Resolve an order against a snapshot
+     *
+     * @param order    the order
+     * @param snapshot the snapshot to look the pizzas up in
+     * @return the resolved order
+     */
+    public static OrderContext of(Order order, ReferenceSnapshot snapshot) {
+        Pizza[] pizzas = order.getPizzasInOrder();
+        if (pizzas == null || pizzas.length == 0) {
+            return new OrderContext(order, snapshot, List.of(), null, false, 0);
+        }
+
+        Restaurant[] pizzaRestaurants = new Restaurant[pizzas.length];
+        boolean singleRestaurant = true;
+        int pizzaTotalInPence = 0;
+        for (int i = 0; i < pizzas.length; i++) {
+            Pizza pizza = pizzas[i];
+            if (pizza == null) {
+                singleRestaurant = false;
+                continue;
+            }
+
+            pizzaRestaurants[i] = snapshot.findRestaurant(pizza.name());
+            pizzaTotalInPence += pizza.priceInPence();
+
+            // The menu index holds one instance per restaurant, so identity tells restaurants apart
+            if (pizzaRestaurants[i] == null || pizzaRestaurants[i] != pizzaRestaurants[0]) {
+                singleRestaurant = false;
+            }
+        }
+
+        return new OrderContext(order, snapshot, Collections.unmodifiableList(Arrays.asList(pizzaRestaurants)),
+                pizzaRestaurants[0], singleRestaurant, pizzaTotalInPence);
+    }
+
+    /**
+     * Get the version of the snapshot the order was resolved against
+     * @return the snapshot version
+     */
+    public long snapshotVersion() {
+        return snapshot.version();
+    }
+}
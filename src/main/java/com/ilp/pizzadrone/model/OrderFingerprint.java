@@ -0,0 +1,141 @@
+package com.ilp.pizzadrone.model;
+
+import com.ilp.pizzadrone.dto.CreditCardInformation;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * An HMAC-SHA256 of every order field the order validation reads:
+ * the order date, the total price, the pizzas in order and the credit card details.
+ * Two orders with the same fingerprint get the same validation result against the same reference data,
+ * so the fingerprint can stand in for the order as a cache key without keeping the card details in clear.
+ * The card details have few possible values, so a plain digest of them could be reversed by trying them all;
+ * the HMAC key is random for every process, so fingerprints cannot be matched against values computed elsewhere.
+ */
+public final class OrderFingerprint {
+    private static final String ALGORITHM = "HmacSHA256";
+    // Marks a missing value, so it cannot be confused with any length prefix
+    private static final int NULL_MARKER = -1;
+    // Keyed once, and copied rather than looked up again for every order
+    private static final Mac PROTOTYPE = newMac();
+    // Platform threads validate many orders, so each keeps its own instance
+    private static final ThreadLocal<Mac> THREAD_MAC = ThreadLocal.withInitial(OrderFingerprint::copyPrototype);
+
+    private final byte[] digest;
+    private final int hash;
+
+    private OrderFingerprint(byte[] digest) {
+        this.digest = digest;
+        // The digest is uniformly distributed, so its first bytes make a good hash code
+        this.hash = (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+    }
+
+    /**
+     * Compute the fingerprint of an order.
+     * Every value is written with its length, and missing values with a marker,
+     * so different orders cannot produce the same input to the digest.
+     *
+     * @param order the order
+     * @return the fingerprint
+     */
+    public static OrderFingerprint of(Order order) {
+        // Virtual threads are created per request, so a thread-local instance would never be reused
+        Mac hmac = Thread.currentThread().isVirtual() ? copyPrototype() : THREAD_MAC.get();
+
+        LocalDate orderDate = order.getOrderDate();
+        updateLong(hmac, orderDate == null ? Long.MIN_VALUE : orderDate.toEpochDay());
+        updateInt(hmac, order.getPriceTotalInPence());
+
+        Pizza[] pizzas = order.getPizzasInOrder();
+        if (pizzas == null) {
+            updateInt(hmac, NULL_MARKER);
+        } else {
+            updateInt(hmac, pizzas.length);
+            for (Pizza pizza : pizzas) {
+                if (pizza == null) {
+                    updateInt(hmac, NULL_MARKER);
+                } else {
+                    updateString(hmac, pizza.name());
+                    updateInt(hmac, pizza.priceInPence());
+                }
+            }
+        }
+
+        CreditCardInformation card = order.getCreditCardInformation();
+        if (card == null) {
+            updateInt(hmac, NULL_MARKER);
+        } else {
+            updateInt(hmac, 0);
+            updateString(hmac, card.getCreditCardNumber());
+            updateString(hmac, card.getCreditCardExpiry());
+            updateString(hmac, card.getCvv());
+        }
+
+        return new OrderFingerprint(hmac.doFinal());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof OrderFingerprint fingerprint
+                && Arrays.equals(digest, fingerprint.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Create the HMAC with a random key for this process
+     */
+    private static Mac newMac() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            // Every Java platform is required to support HmacSHA256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Mac copyPrototype() {
+        try {
+            return (Mac) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void updateString(Mac mac, String value) {
+        if (value == null) {
+            updateInt(mac, NULL_MARKER);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        updateInt(mac, bytes.length);
+        mac.update(bytes);
+    }
+
+    private static void updateInt(Mac mac, int value) {
+        mac.update((byte) (value >>> 24));
+        mac.update((byte) (value >>> 16));
+        mac.update((byte) (value >>> 8));
+        mac.update((byte) value);
+    }
+
+    private static void updateLong(Mac mac, long value) {
+        updateInt(mac, (int) (value >>> 32));
+        updateInt(mac, (int) value);
+    }
+}
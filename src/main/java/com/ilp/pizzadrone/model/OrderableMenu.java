@@ -0,0 +1,19 @@
+package com.ilp.pizzadrone.model;
+
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * What can be ordered on a date, for the front-end to offer before an order is placed
+ *
+ * @param date        the date
+ * @param dayOfWeek   the day of week of the date
+ * @param restaurants the restaurants open on the date
+ * @param pizzas      the pizzas which an order on the date can contain
+ */
+public record OrderableMenu(LocalDate date, DayOfWeek dayOfWeek, List<Restaurant> restaurants, List<Pizza> pizzas) {
+}
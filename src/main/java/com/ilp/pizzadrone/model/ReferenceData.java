@@ -0,0 +1,64 @@
+package com.ilp.pizzadrone.model;
+
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Restaurant;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The reference data as read from a reference data source, before any indexes are built
+ *
+ * @param restaurants the restaurants
+ * @param noFlyZones  the no-fly zones
+ * @param centralArea the central area, or null if there is none
+ */
+public record ReferenceData(List<Restaurant> restaurants, List<NamedRegion> noFlyZones, NamedRegion centralArea) {
+
+    /**
+     * Check if the data is the same as other data, meaning the source has not changed.
+     * Parts which are the same instance are not compared further, so a source returning cached parts is cheap to check.
+     *
+     * @param other the data to compare with
+     * @return true if every part is the same instance or has the same content, false otherwise
+     */
+    public boolean isSameAs(ReferenceData other) {
+        if (other == null) {
+            return false;
+        }
+        if (restaurants == other.restaurants && noFlyZones == other.noFlyZones && centralArea == other.centralArea) {
+            return true;
+        }
+        return sameRestaurants(restaurants, other.restaurants)
+                && Objects.equals(noFlyZones, other.noFlyZones)
+                && Objects.equals(centralArea, other.centralArea);
+    }
+
+    /**
+     * Compare restaurants by content, since the record compares its arrays by identity
+     */
+    private static boolean sameRestaurants(List<Restaurant> restaurants, List<Restaurant> others) {
+        if (restaurants == others) {
+            return true;
+        }
+        if (restaurants == null || others == null || restaurants.size() != others.size()) {
+            return false;
+        }
+        for (int i = 0; i < restaurants.size(); i++) {
+            Restaurant restaurant = restaurants.get(i);
+            Restaurant other = others.get(i);
+            if (restaurant == other) {
+                continue;
+            }
+            if (restaurant == null || other == null
+                    || !Objects.equals(restaurant.name(), other.name())
+                    || !Objects.equals(restaurant.location(), other.location())
+                    || !Arrays.equals(restaurant.openingDays(), other.openingDays())
+                    || !Arrays.equals(restaurant.menu(), other.menu())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package com.ilp.pizzadrone.model;
+
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.util.PreparedRegion;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the reference data fetched from the REST API,
+ * together with the indexes derived from it.
+ *
+ * @param version             the version of the snapshot, increasing with every snapshot published
+ * @param restaurants         the restaurants
+ * @param menuIndex           the restaurant offering each pizza, by pizza name
+ * @param openingDayMasks     the opening days of each restaurant as a bitmask with one bit per day of week
+ * @param openRestaurants     the restaurants open on each day of week
+ * @param orderablePizzas     the pizzas which can be ordered on each day of week
+ * @param noFlyZones          the no-fly zones
+ * @param centralArea         the central area, or null if there is none
+ * @param preparedNoFlyZones  the no-fly zones prepared for containment checks
+ * @param preparedCentralArea the central area prepared for containment checks, or null if there is none
+ */
+public record ReferenceSnapshot(long version,
+                                List<Restaurant> restaurants,
+                                Map<String, Restaurant> menuIndex,
+                                Map<Restaurant, Integer> openingDayMasks,
+                                Map<DayOfWeek, List<Restaurant>> openRestaurants,
+                                Map<DayOfWeek, List<Pizza>> orderablePizzas,
+                                List<NamedRegion> noFlyZones,
+                                NamedRegion centralArea,
+                                List<PreparedRegion> preparedNoFlyZones,
+                                PreparedRegion preparedCentralArea) {
+
+    /**
+     * Build a snapshot and its derived indexes from the fetched reference data
+     *
+     * @param version     the version of the snapshot
+     * @param restaurants the restaurants
+     * @param noFlyZones  the no-fly zones
+     * @param centralArea the central area, or null if there is none
+     * @return the snapshot
+     */
+    public static ReferenceSnapshot of(long version, List<Restaurant> restaurants,
+                                       List<NamedRegion> noFlyZones, NamedRegion centralArea) {
+        List<NamedRegion> zones = noFlyZones == null ? List.of() : List.copyOf(noFlyZones);
+        Map<String, Restaurant> menuIndex = buildMenuIndex(restaurants);
+        Map<Restaurant, Integer> openingDayMasks = buildOpeningDayMasks(restaurants);
+        Map<DayOfWeek, List<Restaurant>> openRestaurants = buildOpenRestaurants(restaurants, openingDayMasks);
+        return new ReferenceSnapshot(version,
+                List.copyOf(restaurants),
+                menuIndex,
+                openingDayMasks,
+                openRestaurants,
+                buildOrderablePizzas(openRestaurants, menuIndex),
+                zones,
+                centralArea,
+                zones.stream().map(PreparedRegion::new).toList(),
+                centralArea == null ? null : new PreparedRegion(centralArea));
+    }
+
+    /**
+     * Find the restaurant offering a pizza
+     *
+     * @param pizzaName the name of the pizza
+     * @return the first restaurant whose menu has the pizza, or null if no restaurant has it
+     */
+    public Restaurant findRestaurant(String pizzaName) {
+        return pizzaName == null ? null : menuIndex.get(pizzaName);
+    }
+
+    /**
+     * Check if a restaurant is open on a day of week
+     *
+     * @param restaurant the restaurant
+     * @param day        the day of week
+     * @return true if the restaurant opens on the day, false otherwise
+     */
+    public boolean isOpen(Restaurant restaurant, DayOfWeek day) {
+        // Restaurants resolved from this snapshot are always indexed, others are masked on the fly
+        Integer mask = openingDayMasks.get(restaurant);
+        return ((mask != null ? mask : openingDayMask(restaurant)) & dayBit(day)) != 0;
+    }
+
+    /**
+     * Get the restaurants open on a day of week
+     *
+     * @param day the day of week
+     * @return the open restaurants, in the order of the fetched restaurants
+     */
+    public List<Restaurant> getOpenRestaurants(DayOfWeek day) {
+        return openRestaurants.get(day);
+    }
+
+    /**
+     * Get the pizzas which can be ordered on a day of week,
+     * which are the pizzas whose restaurant in the menu index is open on the day
+     *
+     * @param day the day of week
+     * @return the orderable pizzas, in menu order
+     */
+    public List<Pizza> getOrderablePizzas(DayOfWeek day) {
+        return orderablePizzas.get(day);
+    }
+
+    /**
+     * Get the bit of a day of week in an opening day mask
+     *
+     * @param day the day of week
+     * @return the bit of the day
+     */
+    public static int dayBit(DayOfWeek day) {
+        return 1 << day.ordinal();
+    }
+
+    /**
+     * Compute the opening day mask of a restaurant
+     *
+     * @param restaurant the restaurant
+     * @return the mask with the bit of every opening day set, 0 if the restaurant has no opening days
+     */
+    public static int openingDayMask(Restaurant restaurant) {
+        int mask = 0;
+        if (restaurant.openingDays() == null) return mask;
+        for (DayOfWeek day : restaurant.openingDays()) {
+            if (day != null) {
+                mask |= dayBit(day);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Compute the opening day mask of every restaurant.
+     * Restaurants are keyed by identity, as the record compares their arrays by reference anyway
+     */
+    private static Map<Restaurant, Integer> buildOpeningDayMasks(List<Restaurant> restaurants) {
+        Map<Restaurant, Integer> masks = new IdentityHashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            masks.put(restaurant, openingDayMask(restaurant));
+        }
+        return Collections.unmodifiableMap(masks);
+    }
+
+    /**
+     * List the restaurants open on each day of week
+     */
+    private static Map<DayOfWeek, List<Restaurant>> buildOpenRestaurants(List<Restaurant> restaurants,
+                                                                         Map<Restaurant, Integer> masks) {
+        Map<DayOfWeek, List<Restaurant>> openRestaurants = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<Restaurant> open = new ArrayList<>();
+            for (Restaurant restaurant : restaurants) {
+                if ((masks.get(restaurant) & dayBit(day)) != 0) {
+                    open.add(restaurant);
+                }
+            }
+            openRestaurants.put(day, List.copyOf(open));
+        }
+        return Collections.unmodifiableMap(openRestaurants);
+    }
+
+    /**
+     * List the pizzas which can be ordered on each day of week.
+     * A pizza counts only for the restaurant the menu index resolves it to, as orders are checked against that one
+     */
+    private static Map<DayOfWeek, List<Pizza>> buildOrderablePizzas(Map<DayOfWeek, List<Restaurant>> openRestaurants,
+                                                                    Map<String, Restaurant> menuIndex) {
+        Map<DayOfWeek, List<Pizza>> orderablePizzas = new EnumMap<>(DayOfWeek.class);
+        for (Map.Entry<DayOfWeek, List<Restaurant>> entry : openRestaurants.entrySet()) {
+            List<Pizza> pizzas = new ArrayList<>();
+            for (Restaurant restaurant : entry.getValue()) {
+                if (restaurant.menu() == null) continue;
+                for (Pizza pizza : restaurant.menu()) {
+                    if (pizza.name() != null && menuIndex.get(pizza.name()) == restaurant) {
+                        pizzas.add(pizza);
+                    }
+                }
+            }
+            orderablePizzas.put(entry.getKey(), List.copyOf(pizzas));
+        }
+        return Collections.unmodifiableMap(orderablePizzas);
+    }
+
+    /**
+     * Index the restaurants by the pizzas on their menus, keeping the first restaurant for each pizza
+     */
+    private static Map<String, Restaurant> buildMenuIndex(List<Restaurant> restaurants) {
+        Map<String, Restaurant> menuIndex = new HashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            if (restaurant.menu() == null) continue;
+            for (Pizza pizza : restaurant.menu()) {
+                if (pizza.name() != null) {
+                    menuIndex.putIfAbsent(pizza.name(), restaurant);
+                }
+            }
+        }
+        return Map.copyOf(menuIndex);
+    }
+}
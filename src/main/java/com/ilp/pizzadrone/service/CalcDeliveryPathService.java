@@ -1,39 +1,72 @@
 package com.ilp.pizzadrone.service;
 
+import com.ilp.pizzadrone.dto.CompactPath;
 import com.ilp.pizzadrone.dto.LngLat;
-import com.ilp.pizzadrone.dto.NamedRegion;
 import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.OrderContext;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
 import com.ilp.pizzadrone.util.CalcPathUtils;
-import com.ilp.pizzadrone.util.OrderValidationUtils;
+import com.ilp.pizzadrone.util.CompactPathUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
 import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
 
 /**
- * Service class to calculate the delivery path for the order
+ * Service class to calculate the delivery path for the order.
+ * Every delivery ends at Appleton Tower, so the path only depends on the restaurant and the regions.
+ * Paths are cached by restaurant location for the current reference data snapshot,
+ * as a start point and a move code per step, and expanded again for callers which need the positions.
+ * Searches run on the bounded path planning executor rather than on the request thread,
+ * and concurrent requests for the same path share a single search.
+ * A search is only started once the admission controller has budget for its estimated cost.
  */
 @Service
 public class CalcDeliveryPathService {
-    private final OrderValidationUtils orderValidationUtils;
-    private final RetrieveAPIService retrieveAPIService;
+    private final ReferenceDataLoader referenceDataLoader;
     private final CalcPathUtils calcPathUtils;
+    private final PortfolioPathService portfolioPathService;
+    private final CompactPathUtils compactPathUtils;
+    private final ExecutorService pathPlanningExecutor;
+    private final PathAdmissionController pathAdmissionController;
+    // The paths calculated for the current snapshot version
+    private volatile RouteCache routeCache = new RouteCache(-1, new ConcurrentHashMap<>());
+    // The paths being calculated, so identical concurrent requests share one search
+    private final Map<RouteKey, InFlightRoute> inFlightRoutes = new ConcurrentHashMap<>();
     private static final Logger log = LoggerFactory.getLogger(CalcDeliveryPathService.class);
 
     /**
      * Constructor for the CalcDeliveryPathService
      */
-    public CalcDeliveryPathService(OrderValidationUtils orderValidationUtils,
-                                   RetrieveAPIService retrieveAPIService,
-                                   CalcPathUtils calcPathUtils) {
+    public CalcDeliveryPathService(ReferenceDataLoader referenceDataLoader,
+                                   CalcPathUtils calcPathUtils,
+                                   PortfolioPathService portfolioPathService,
+                                   CompactPathUtils compactPathUtils,
+                                   @Qualifier("pathPlanningExecutor") ExecutorService pathPlanningExecutor,
+                                   PathAdmissionController pathAdmissionController) {
 
-        this.orderValidationUtils = orderValidationUtils;
-        this.retrieveAPIService = retrieveAPIService;
+        this.referenceDataLoader = referenceDataLoader;
         this.calcPathUtils = calcPathUtils;
+        this.portfolioPathService = portfolioPathService;
+        this.compactPathUtils = compactPathUtils;
+        this.pathPlanningExecutor = pathPlanningExecutor;
+        this.pathAdmissionController = pathAdmissionController;
     }
 
     /**
@@ -43,39 +76,420 @@ public class CalcDeliveryPathService {
      * @return the delivery path
      */
     public List<LngLat> calcDeliveryPath (Order validOrder) {
+        return calcDeliveryPath(OrderContext.of(validOrder, referenceDataLoader.getSnapshot()));
+    }
+
+    /**
+     * Calculate the delivery path for an order which has already been resolved
+     *
+     * @param orderContext the resolved valid order
+     * @return the delivery path
+     */
+    public List<LngLat> calcDeliveryPath(OrderContext orderContext) {
+        // Wait for the path on the calling thread
+        return await(calcDeliveryPathAsync(orderContext));
+    }
+
+    /**
+     * Calculate the delivery path for the order without blocking the calling thread.
+     * Cancelling the returned future interrupts the search if it is still running,
+     * or gives up its place in the admission queue if it has not started.
+     *
+     * @param validOrder the valid order
+     * @return a future completed with the delivery path, or failed with PlanningCapacityException
+     *         if the path has to be searched and path planning is at capacity
+     */
+    public CompletableFuture<List<LngLat>> calcDeliveryPathAsync(Order validOrder) {
+        return calcDeliveryPathAsync(OrderContext.of(validOrder, referenceDataLoader.getSnapshot()));
+    }
+
+    /**
+     * Calculate the delivery path for an order which has already been resolved, without blocking the calling thread.
+     * The restaurant and the regions are both taken from the snapshot the order was resolved against.
+     *
+     * @param orderContext the resolved valid order
+     * @return a future completed with the delivery path, or failed with PlanningCapacityException
+     *         if the path has to be searched and path planning is at capacity
+     */
+    public CompletableFuture<List<LngLat>> calcDeliveryPathAsync(OrderContext orderContext) {
         // Start time measurement
         long startNs =  System.nanoTime();
 
         // Location of Appleton Tower
         LngLat appletonTowerLocation = new LngLat(APPLETON_LNG, APPLETON_LAT);
 
-        // Get LnLat of the restaurant from the order
-        LngLat orderRestaurantLocation = orderValidationUtils
-                .findOrderRestaurant(validOrder.getPizzasInOrder()[0].name())
-                .location();
+        // Use the snapshot the order was resolved against, so the restaurant and regions are consistent
+        ReferenceSnapshot snapshot = orderContext.snapshot();
+        Restaurant orderRestaurant = orderContext.restaurant();
+        LngLat orderRestaurantLocation = orderRestaurant.location();
 
         log.info("calcDeliveryPath called: restaurant={}, from=({}, {}), to=({}, {})",
-                validOrder.getPizzasInOrder()[0].name(),
+                orderRestaurant.name(),
                 orderRestaurantLocation.lng(), orderRestaurantLocation.lat(),
                 appletonTowerLocation.lng(), appletonTowerLocation.lat());
 
-        // Get no-fly zones
-        List<NamedRegion> noFlyZones = retrieveAPIService.fetchNoFlyZones();
+        log.info("calcDeliveryPath constraints: version={}, noFlyZonesCount={}, centralAreaName={}",
+                snapshot.version(), snapshot.noFlyZones().size(),
+                snapshot.centralArea() == null ? "null" : snapshot.centralArea().name());
 
-        // Get central area
-        NamedRegion centralArea = retrieveAPIService.fetchCentralArea();
+        // Calculate the path avoiding no-fly zones and staying within central area
+        CompletableFuture<List<LngLat>> path = findRouteAsync(snapshot, orderRestaurantLocation, appletonTowerLocation);
+        path.whenComplete((flyPath, error) -> {
+            long tookMs = (System.nanoTime() - startNs) / 1_000_000;
+            if (error == null) {
+                log.info("calcDeliveryPath finished: pathPoints={}, tookMs={}", flyPath.size(), tookMs);
+            } else if (path.isCancelled()) {
+                log.info("calcDeliveryPath cancelled: tookMs={}", tookMs);
+            }
+        });
+        return path;
+    }
 
-        log.info("calcDeliveryPath constraints: noFlyZonesCount={}, centralAreaName={}",
-                noFlyZones == null ? 0 : noFlyZones.size(),
-                centralArea == null ? "null" : centralArea.name());
+    /**
+     * Calculate and cache the path from every restaurant in the current snapshot
+     *
+     * @return the number of restaurants with a cached path
+     */
+    public int precomputeRoutes() {
+        ReferenceSnapshot snapshot = referenceDataLoader.getSnapshot();
+        LngLat appletonTowerLocation = new LngLat(APPLETON_LNG, APPLETON_LAT);
 
-        // Calculate the path avoiding no-fly zones and staying within central area
-        List<LngLat> path = calcPathUtils.calculatePath(orderRestaurantLocation, appletonTowerLocation, noFlyZones, centralArea);
-        long tookMs = (System.nanoTime() - startNs) / 1_000_000;
-        log.info("calcDeliveryPath finished: pathPoints={}, tookMs={}", path == null ? 0 : path.size(), tookMs);
+        int routes = 0;
+        for (Restaurant restaurant : snapshot.restaurants()) {
+            if (restaurant.location() != null
+                    && !await(findRouteAsync(snapshot, restaurant.location(), appletonTowerLocation)).isEmpty()) {
+                routes++;
+            }
+        }
+        return routes;
+    }
 
+    /**
+     * Get the cached path from a restaurant, calculating it if it has not been calculated for the snapshot.
+     * Concurrent requests for a path which is being calculated wait for the same search instead of starting their own.
+     *
+     * @param snapshot the snapshot the restaurant and regions are taken from
+     * @param restaurantLocation the location of the restaurant
+     * @param appletonTowerLocation the location of Appleton Tower
+     * @return a future completed with the path
+     */
+    private CompletableFuture<List<LngLat>> findRouteAsync(ReferenceSnapshot snapshot, LngLat restaurantLocation,
+                                                          LngLat appletonTowerLocation) {
+        Map<LngLat, CompactPath> routes = getRoutes(snapshot.version());
+        CompactPath cached = routes.get(restaurantLocation);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(compactPathUtils.expand(cached));
+        }
 
-        // Calculate the delivery path
-        return path;
+        RouteKey key = new RouteKey(restaurantLocation, appletonTowerLocation, snapshot.version());
+        InFlightRoute candidate = InFlightRoute.start();
+        // A cancelled search is dropped straight away, so no later request joins it
+        candidate.route().whenComplete((path, error) -> {
+            if (candidate.route().isCancelled()) {
+                inFlightRoutes.remove(key, candidate);
+            }
+        });
+        // The owner waits before other requests can join, so their cancelling never cancels its search
+        CompletableFuture<List<LngLat>> owner = candidate.owner();
+
+        InFlightRoute inFlight;
+        while ((inFlight = inFlightRoutes.putIfAbsent(key, candidate)) != null) {
+            CompletableFuture<List<LngLat>> waiter = inFlight.join();
+            if (waiter != null) {
+                log.debug("calcDeliveryPath joined the search in flight for version {}", snapshot.version());
+                return waiter;
+            }
+            // Every waiter of the search has cancelled, so it is being cancelled and cannot be joined
+            inFlightRoutes.remove(key, inFlight);
+        }
+
+        try {
+            startRoute(candidate, key, routes, snapshot);
+        } catch (RuntimeException e) {
+            // Requests which joined in the meantime fail the same way
+            inFlightRoutes.remove(key, candidate);
+            candidate.route().completeExceptionally(e);
+            throw e;
+        }
+        return owner;
+    }
+
+    /**
+     * Complete an in-flight route from the cache, or from a new search which caches its path
+     *
+     * @param inFlight the in-flight route to complete
+     * @param key the key of the route
+     * @param routes the route cache of the snapshot version
+     * @param snapshot the snapshot the regions are taken from
+     */
+    private void startRoute(InFlightRoute inFlight, RouteKey key, Map<LngLat, CompactPath> routes,
+                            ReferenceSnapshot snapshot) {
+        // A search which finished since the cache was checked may have cached the path already
+        CompactPath cached = routes.get(key.restaurantLocation());
+        if (cached != null) {
+            inFlightRoutes.remove(key, inFlight);
+            inFlight.route().complete(compactPathUtils.expand(cached));
+            return;
+        }
+
+        // Wait for admission without holding the calling thread, so the caller's deadline covers the queueing too
+        int cost = pathAdmissionController.estimateCost(key.restaurantLocation(), key.destination(),
+                snapshot.preparedNoFlyZones());
+        CompletableFuture<Void> admitted = pathAdmissionController.admit(cost);
+        admitted.whenComplete((ignored, error) -> {
+            if (error != null) {
+                inFlightRoutes.remove(key, inFlight);
+                inFlight.route().completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            if (inFlight.route().isDone()) {
+                // Every waiter gave up while the search was queued
+                pathAdmissionController.release(cost);
+                return;
+            }
+            searchRoute(inFlight, key, routes, snapshot, cost);
+        });
+
+        // Cancelling the route once every waiter has gone gives up its place in the admission queue
+        inFlight.route().whenComplete((path, error) -> {
+            if (inFlight.route().isCancelled()) {
+                admitted.cancel(false);
+            }
+        });
+    }
+
+    /**
+     * Run the search of an admitted in-flight route, caching its path and releasing its budget when it finishes
+     *
+     * @param inFlight the in-flight route to complete
+     * @param key the key of the route
+     * @param routes the route cache of the snapshot version
+     * @param snapshot the snapshot the regions are taken from
+     * @param cost the estimated cost the search was admitted with
+     */
+    private void searchRoute(InFlightRoute inFlight, RouteKey key, Map<LngLat, CompactPath> routes,
+                             ReferenceSnapshot snapshot, int cost) {
+        CompletableFuture<List<LngLat>> search;
+        try {
+            search = searchPathAsync(snapshot, key.restaurantLocation(), key.destination());
+        } catch (RuntimeException e) {
+            pathAdmissionController.release(cost);
+            inFlightRoutes.remove(key, inFlight);
+            inFlight.route().completeExceptionally(e);
+            return;
+        }
+        search.whenComplete((path, error) -> {
+            pathAdmissionController.release(cost);
+            inFlightRoutes.remove(key, inFlight);
+            if (error != null) {
+                inFlight.route().completeExceptionally(error);
+            } else if (path == null || path.isEmpty()) {
+                inFlight.route().complete(List.of());
+            } else {
+                cacheRoute(routes, key.restaurantLocation(), path);
+                inFlight.route().complete(List.copyOf(path));
+            }
+        });
+
+        // Cancelling the route once every waiter has gone stops the search behind it
+        inFlight.route().whenComplete((path, error) -> {
+            if (inFlight.route().isCancelled()) {
+                search.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Cache a path in its compact form
+     *
+     * @param routes the route cache of the snapshot version
+     * @param restaurantLocation the start of the path
+     * @param path the path found by the search
+     */
+    private void cacheRoute(Map<LngLat, CompactPath> routes, LngLat restaurantLocation, List<LngLat> path) {
+        try {
+            routes.putIfAbsent(restaurantLocation, compactPathUtils.compress(path));
+        } catch (IllegalArgumentException e) {
+            // A path which cannot be replayed move by move is still returned, just not cached
+            log.warn("calcDeliveryPath not cached: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start a path search on the path planning executor
+     *
+     * @param snapshot the snapshot the regions are taken from
+     * @param restaurantLocation the location of the restaurant
+     * @param appletonTowerLocation the location of Appleton Tower
+     * @return a future completed with the path, which interrupts the search when cancelled
+     * @throws PlanningCapacityException if the executor is at capacity
+     */
+    private CompletableFuture<List<LngLat>> searchPathAsync(ReferenceSnapshot snapshot, LngLat restaurantLocation,
+                                                           LngLat appletonTowerLocation) {
+        CompletableFuture<List<LngLat>> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = pathPlanningExecutor.submit(() -> {
+                try {
+                    result.complete(portfolioPathService.isEnabled()
+                            ? portfolioPathService.calculatePath(restaurantLocation, appletonTowerLocation,
+                                    snapshot.preparedNoFlyZones(), snapshot.preparedCentralArea())
+                            : calcPathUtils.calculatePath(restaurantLocation, appletonTowerLocation,
+                                    snapshot.preparedNoFlyZones(), snapshot.preparedCentralArea()));
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("calcDeliveryPath rejected: path planning is at capacity");
+            throw new PlanningCapacityException("Path planning is at capacity", e);
+        }
+
+        // CompletableFuture.cancel does not interrupt, so interrupt the search thread here
+        result.whenComplete((path, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Wait for a path on the calling thread, cancelling the search if the thread is interrupted
+     *
+     * @param path the future path
+     * @return the path
+     */
+    private static List<LngLat> await(CompletableFuture<List<LngLat>> path) {
+        try {
+            return path.get();
+        } catch (InterruptedException e) {
+            // Nobody is waiting for the path any more, so stop the search
+            path.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Path search was interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Get the route cache for a snapshot version, starting an empty one when the version changes
+     *
+     * @param version the snapshot version
+     * @return the routes cached for the version
+     */
+    private Map<LngLat, CompactPath> getRoutes(long version) {
+        RouteCache cache = routeCache;
+        if (cache.version() == version) {
+            return cache.routes();
+        }
+
+        synchronized (this) {
+            // Never go back to an older version when requests still hold an older snapshot
+            if (routeCache.version() < version) {
+                routeCache = new RouteCache(version, new ConcurrentHashMap<>());
+            } else if (routeCache.version() > version) {
+                return new ConcurrentHashMap<>();
+            }
+            return routeCache.routes();
+        }
+    }
+
+    /**
+     * Calculate the delivery path for the order as a start point and a list of move codes
+     *
+     * @param validOrder the valid order
+     * @return the compact delivery path, CompactPath.EMPTY if no path was found
+     */
+    public CompactPath calcCompactDeliveryPath(Order validOrder) {
+        return compactPathUtils.compress(calcDeliveryPath(validOrder));
+    }
+
+    /**
+     * Calculate the delivery path for an order which has already been resolved, as a start point and a list of move codes
+     *
+     * @param orderContext the resolved valid order
+     * @return the compact delivery path, CompactPath.EMPTY if no path was found
+     */
+    public CompactPath calcCompactDeliveryPath(OrderContext orderContext) {
+        // A cached path is already compact, so it is neither expanded nor compressed again
+        CompactPath cached = getRoutes(orderContext.snapshotVersion()).get(orderContext.restaurant().location());
+        if (cached != null) {
+            return cached;
+        }
+        return compactPathUtils.compress(calcDeliveryPath(orderContext));
+    }
+
+    /**
+     * The paths calculated for one snapshot version
+     * @param version the snapshot version
+     * @param routes the compact paths by restaurant location
+     */
+    private record RouteCache(long version, Map<LngLat, CompactPath> routes) {
+    }
+
+    /**
+     * The identity of a path search
+     * @param restaurantLocation the start of the path
+     * @param destination the end of the path
+     * @param version the snapshot version the regions are taken from
+     */
+    private record RouteKey(LngLat restaurantLocation, LngLat destination, long version) {
+    }
+
+    /**
+     * A path being calculated and the number of requests waiting for it
+     * @param route the future completed with the path
+     * @param waiters the number of requests which have joined the search
+     */
+    record InFlightRoute(CompletableFuture<List<LngLat>> route, AtomicInteger waiters) {
+
+        /**
+         * Create a search with its owner counted as the first waiter
+         * @return the search
+         */
+        static InFlightRoute start() {
+            return new InFlightRoute(new CompletableFuture<>(), new AtomicInteger(1));
+        }
+
+        /**
+         * Get the future of the path for the request which started the search
+         * @return the future of the path
+         */
+        CompletableFuture<List<LngLat>> owner() {
+            return waitFor();
+        }
+
+        /**
+         * Join the search, getting a future of the path for one request.
+         * Cancelling it only cancels the search if every request which joined has cancelled.
+         * Once the last waiter has cancelled no request can join, so none gets a cancellation it did not ask for.
+         *
+         * @return the future of the path, or null if every waiter has cancelled
+         */
+        CompletableFuture<List<LngLat>> join() {
+            int count;
+            do {
+                count = waiters.get();
+                if (count == 0) {
+                    return null;
+                }
+            } while (!waiters.compareAndSet(count, count + 1));
+            return waitFor();
+        }
+
+        /**
+         * Get a future of the path for one counted waiter
+         */
+        private CompletableFuture<List<LngLat>> waitFor() {
+            CompletableFuture<List<LngLat>> waiter = route.copy();
+            waiter.whenComplete((path, error) -> {
+                if (waiter.isCancelled() && waiters.decrementAndGet() == 0) {
+                    route.cancel(true);
+                }
+            });
+            return waiter;
+        }
     }
 }
@@ -1,49 +1,163 @@
 package com.ilp.pizzadrone.service;
 
 import com.ilp.pizzadrone.dto.LngLat;
-import com.mapbox.geojson.*;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.util.GeoJsonStreamWriter;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 
 /**
- * Service class to convert a list of LngLat path to GeoJSON format using mapbox library
+ * Service class to convert a list of LngLat path to GeoJSON format.
+ * The GeoJSON is written directly to an output stream, so responses do not need the whole document in memory.
+ * The no-fly zone and central area layers are serialised once per reference data snapshot.
  */
 @Service
 public class GeoJsonService {
+    private final ReferenceDataLoader referenceDataLoader;
+
+    // The snapshot version last serialised and its features as UTF-8 bytes
+    private volatile ZoneLayers zoneLayers;
+
+    /**
+     * Constructor for the GeoJsonService
+     */
+    public GeoJsonService(ReferenceDataLoader referenceDataLoader) {
+        this.referenceDataLoader = referenceDataLoader;
+    }
+
     /**
-     * Convert a list of LngLat path to GeoJSON format using mapbox library
+     * Convert a list of LngLat path to GeoJSON format
      *
      * @param flightPath the flight path as a list of LngLat
-     * @return a map representing the GeoJSON structure
+     * @return a string holding the GeoJSON FeatureCollection
      */
     public String convertToGeoJson(List<LngLat> flightPath) {
-        // Create features list
-        List<Feature> features = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeGeoJson(flightPath, false, out);
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
-        // Add flight path feature
-        features.add(createFlightPathFeature(flightPath));
+    /**
+     * Write a list of LngLat path to an output stream as a GeoJSON FeatureCollection
+     *
+     * @param flightPath the flight path as a list of LngLat
+     * @param out the stream to write the UTF-8 encoded GeoJSON to
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeGeoJson(List<LngLat> flightPath, OutputStream out) throws IOException {
+        writeGeoJson(flightPath, false, out);
+    }
 
-        // Create FeatureCollection
-        return FeatureCollection.fromFeatures(features).toJson();
+    /**
+     * Write a list of LngLat path to an output stream as a GeoJSON FeatureCollection,
+     * optionally followed by the no-fly zones and the central area as polygon features
+     *
+     * @param flightPath the flight path as a list of LngLat
+     * @param includeZones whether to add the no-fly zone and central area layers
+     * @param out the stream to write the UTF-8 encoded GeoJSON to
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeGeoJson(List<LngLat> flightPath, boolean includeZones, OutputStream out) throws IOException {
+        writeGeoJson(flightPath, includeZones ? referenceDataLoader.getSnapshot() : null, out);
     }
 
     /**
-     * Create a feature from a list of LngLat points representing the flight path
+     * Write a list of LngLat path to an output stream as a GeoJSON FeatureCollection,
+     * optionally followed by the no-fly zones and the central area of a snapshot as polygon features.
+     * Passing the snapshot the path was planned with keeps the zones consistent with the path.
+     *
      * @param flightPath the flight path as a list of LngLat
-     * @return the feature representing the flight path
+     * @param zonesSnapshot the snapshot to take the zone layers from, or null to leave them out
+     * @param out the stream to write the UTF-8 encoded GeoJSON to
+     * @throws IOException if writing to the stream fails
      */
-    private Feature createFlightPathFeature(List<LngLat> flightPath) {
-        List<Point> points = new ArrayList<>();
-        for (LngLat point : flightPath) {
-            points.add(Point.fromLngLat(point.lng(), point.lat()));
+    public void writeGeoJson(List<LngLat> flightPath, ReferenceSnapshot zonesSnapshot, OutputStream out)
+            throws IOException {
+        GeoJsonStreamWriter writer = new GeoJsonStreamWriter(out);
+        writer.beginFeatureCollection();
+
+        // Add flight path feature
+        writer.writeLineStringFeature(flightPath, "Flight Path", "#ff0000");
+
+        // Add the pre-serialised region features
+        if (zonesSnapshot != null) {
+            for (byte[] feature : getZoneLayers(zonesSnapshot).features()) {
+                writer.writeRawFeature(feature);
+            }
+        }
+
+        writer.endFeatureCollection();
+    }
+
+    /**
+     * Get the serialised region layers, serialising them again only if the snapshot has changed
+     *
+     * @param snapshot the snapshot to take the regions from
+     * @return the region layers for the snapshot
+     */
+    private ZoneLayers getZoneLayers(ReferenceSnapshot snapshot) {
+        ZoneLayers layers = zoneLayers;
+        if (layers == null || layers.version() != snapshot.version()) {
+            layers = new ZoneLayers(snapshot.version(),
+                    serialiseZones(snapshot.noFlyZones(), snapshot.centralArea()));
+            // Requests still holding an older snapshot do not replace the layers of a newer one
+            if (zoneLayers == null || zoneLayers.version() < snapshot.version()) {
+                zoneLayers = layers;
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * Serialise every region as a standalone polygon feature
+     *
+     * @param noFlyZones the no-fly zones
+     * @param centralArea the central area, or null if there is none
+     * @return one UTF-8 encoded feature per region
+     */
+    private static List<byte[]> serialiseZones(List<NamedRegion> noFlyZones, NamedRegion centralArea) {
+        List<byte[]> features = new ArrayList<>();
+        try {
+            for (NamedRegion zone : noFlyZones) {
+                features.add(serialisePolygon(zone, "#000000"));
+            }
+            if (centralArea != null) {
+                features.add(serialisePolygon(centralArea, "#0000ff"));
+            }
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
         }
-        LineString lineString = LineString.fromLngLats(points);
-        Feature feature = Feature.fromGeometry(lineString);
-        feature.addStringProperty("name", "Flight Path");
-        feature.addStringProperty("color", "#ff0000");
-        return feature;
+        return List.copyOf(features);
+    }
+
+    private static byte[] serialisePolygon(NamedRegion region, String color) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeoJsonStreamWriter writer = new GeoJsonStreamWriter(out);
+        writer.writePolygonFeature(region.vertices(), region.name(), color);
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    /**
+     * The snapshot version a set of layers was serialised from, and the serialised features
+     * @param version the snapshot version
+     * @param features the UTF-8 encoded features
+     */
+    private record ZoneLayers(long version, List<byte[]> features) {
     }
 }
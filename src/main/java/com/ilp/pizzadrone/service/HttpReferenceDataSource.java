@@ -0,0 +1,57 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.ReferenceData;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reference data source backed by the REST API.
+ * Restaurants, no-fly zones and the central area are fetched in parallel on virtual threads.
+ */
+public class HttpReferenceDataSource implements ReferenceDataSource {
+    private final RetrieveAPIService retrieveAPIService;
+
+    /**
+     * Constructor for the HttpReferenceDataSource
+     */
+    public HttpReferenceDataSource(RetrieveAPIService retrieveAPIService) {
+        this.retrieveAPIService = retrieveAPIService;
+    }
+
+    /**
+     * Fetch the three datasets concurrently
+     *
+     * @return the fetched data
+     */
+    @Override
+    public ReferenceData fetch() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Restaurant>> restaurants = executor.submit(retrieveAPIService::fetchRestaurants);
+            Future<List<NamedRegion>> noFlyZones = executor.submit(retrieveAPIService::fetchNoFlyZones);
+            Future<NamedRegion> centralArea = executor.submit(retrieveAPIService::fetchCentralArea);
+
+            try {
+                return new ReferenceData(restaurants.get(), noFlyZones.get(), centralArea.get());
+            } catch (ExecutionException e) {
+                // Do not wait for the other requests once one has failed
+                executor.shutdownNow();
+                throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reference data load was interrupted", e);
+            }
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "http";
+    }
+}
@@ -0,0 +1,98 @@
+package com.ilp.pizzadrone.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.ReferenceData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Reference data source reading the REST API responses saved as JSON files in a local directory.
+ * The directory holds restaurants.json, noFlyZones.json and, optionally, centralArea.json.
+ * The files are parsed again only when one of them has changed, otherwise the same instance is returned.
+ */
+public class JsonDirectoryReferenceDataSource implements ReferenceDataSource {
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    // The data last read and the file states it was read from
+    private volatile CachedRead cachedRead;
+
+    /**
+     * Constructor for the JsonDirectoryReferenceDataSource
+     *
+     * @param directory the directory holding the JSON files
+     * @param objectMapper the mapper used to parse the files
+     */
+    public JsonDirectoryReferenceDataSource(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read the three JSON files, returning the same instance as before if none of them has changed
+     *
+     * @return the data read
+     */
+    @Override
+    public ReferenceData fetch() {
+        try {
+            Path restaurantsFile = directory.resolve("restaurants.json");
+            Path noFlyZonesFile = directory.resolve("noFlyZones.json");
+            Path centralAreaFile = directory.resolve("centralArea.json");
+            List<FileState> states = List.of(FileState.of(restaurantsFile), FileState.of(noFlyZonesFile),
+                    FileState.of(centralAreaFile));
+
+            CachedRead cached = cachedRead;
+            if (cached != null && cached.states().equals(states)) {
+                return cached.data();
+            }
+
+            ReferenceData data = new ReferenceData(
+                    List.of(objectMapper.readValue(restaurantsFile.toFile(), Restaurant[].class)),
+                    List.of(objectMapper.readValue(noFlyZonesFile.toFile(), NamedRegion[].class)),
+                    Files.exists(centralAreaFile)
+                            ? objectMapper.readValue(centralAreaFile.toFile(), NamedRegion.class)
+                            : null);
+            cachedRead = new CachedRead(states, data);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read reference data from " + directory, e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "directory " + directory;
+    }
+
+    /**
+     * The state of a file when it was read
+     * @param modified the last modification time, or null if the file does not exist
+     * @param size the size of the file, or -1 if the file does not exist
+     */
+    private record FileState(FileTime modified, long size) {
+        static FileState of(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return new FileState(null, -1);
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileState(attributes.lastModifiedTime(), attributes.size());
+        }
+    }
+
+    /**
+     * The data last read and the state of the files when it was read
+     * @param states the states of the restaurants, no-fly zones and central area files
+     * @param data the data read
+     */
+    private record CachedRead(List<FileState> states, ReferenceData data) {
+    }
+}
@@ -6,14 +6,23 @@ import com.ilp.pizzadrone.constant.OrderValidationCode;
 import com.ilp.pizzadrone.dto.CreditCardInformation;
 import com.ilp.pizzadrone.dto.Order;
 import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.model.OrderContext;
+import com.ilp.pizzadrone.model.OrderFingerprint;
 import com.ilp.pizzadrone.model.OrderValidation;
+import com.ilp.pizzadrone.model.OrderableMenu;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.util.ApproximateLruCache;
 import com.ilp.pizzadrone.validation.CreditCardValidator;
+import com.ilp.pizzadrone.validation.OrderRule;
+import com.ilp.pizzadrone.validation.OrderRuleChain;
 import com.ilp.pizzadrone.validation.PizzaValidator;
 import com.ilp.pizzadrone.validation.RestaurantValidator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,124 +31,255 @@ import static com.ilp.pizzadrone.constant.SystemConstants.MAX_PIZZAS_PER_ORDER;
 
 /**
  * Service class for validating an order
+ * Validation results are cached by order fingerprint for the current reference data snapshot,
+ * so a resubmitted order is answered without running the checks again.
+ * The checks run as a rule chain which runs cheap, often failing checks first
+ * while reporting the same code as running them in their specified order.
  */
 @Service
 public class OrderService {
     private final PizzaValidator pizzaValidator;
     private final CreditCardValidator creditCardValidator;
     private final RestaurantValidator restaurantValidator;
+    private final ReferenceDataLoader referenceDataLoader;
+    private final int validationCacheSize;
+    private final OrderRuleChain ruleChain;
+    // The validation results for the current snapshot version
+    private volatile ValidationCache validationCache = new ValidationCache(-1, new ApproximateLruCache<>(0));
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
+    /**
+     * Constructor for the OrderService
+     *
+     * @param validationCacheSize the largest number of validation results cached, 0 disables the cache
+     */
     public OrderService(PizzaValidator pizzaValidator,
                         CreditCardValidator creditCardValidator,
-                        RestaurantValidator restaurantValidator) {
+                        RestaurantValidator restaurantValidator,
+                        ReferenceDataLoader referenceDataLoader,
+                        @Value("${pizzadrone.orders.validation-cache.max-size:10000}") int validationCacheSize) {
 
         this.pizzaValidator = pizzaValidator;
         this.creditCardValidator = creditCardValidator;
         this.restaurantValidator = restaurantValidator;
+        this.referenceDataLoader = referenceDataLoader;
+        this.validationCacheSize = validationCacheSize;
+        this.ruleChain = createRuleChain();
     }
 
     /**
-     * Validates an order
-     * Checks if the order is valid based on the following criteria:
-     * - Order is not empty
-     * - Order has at most 4 pizzas
-     * - All pizzas are from the same restaurant
-     * - Total price is correct
-     * - Credit card information is valid
-     * - Restaurant is open on the order day
-     * - Price of pizza is valid
+     * Resolve an order against the current reference data snapshot,
+     * so the following steps neither look the pizzas up again nor see a different snapshot
+     *
+     * @param order the order to resolve
+     * @return the resolved order
+     */
+    public OrderContext resolveOrder(Order order) {
+        return OrderContext.of(order, referenceDataLoader.getSnapshot());
+    }
+
+    /**
+     * Validates an order against the current reference data snapshot
      *
      * @param order the order to validate
      * @return the validation result
      */
     public OrderValidation validateOrder(Order order) {
-        // Get order information
-        LocalDate orderDate = order.getOrderDate();
-        int priceTotalInPence = order.getPriceTotalInPence();
+        return validateOrder(resolveOrder(order));
+    }
 
-        // Get Pizza information
-        Pizza[] pizzas = order.getPizzasInOrder();
+    /**
+     * Validates an order without caching the result or recording rule statistics,
+     * for synthetic orders which must not affect how real orders are validated
+     *
+     * @param order the order to validate
+     * @return the validation result
+     */
+    public OrderValidation validateOrderUnrecorded(Order order) {
+        return checkOrder(resolveOrder(order), false);
+    }
+
+    /**
+     * Get the restaurants open and the pizzas which can be ordered on a date, from the current snapshot
+     *
+     * @param date the order date
+     * @return the orderable menu for the date
+     */
+    public OrderableMenu getOrderableMenu(LocalDate date) {
+        ReferenceSnapshot snapshot = referenceDataLoader.getSnapshot();
+        DayOfWeek day = date.getDayOfWeek();
+        return new OrderableMenu(date, day, snapshot.getOpenRestaurants(day), snapshot.getOrderablePizzas(day));
+    }
+
+    /**
+     * Validates an order, answering an order seen before for the same snapshot from the cache
+     *
+     * @param orderContext the resolved order to validate
+     * @return the validation result
+     */
+    public OrderValidation validateOrder(OrderContext orderContext) {
+        if (validationCacheSize <= 0) {
+            return checkOrder(orderContext, true);
+        }
+
+        OrderFingerprint fingerprint = OrderFingerprint.of(orderContext.order());
+        ApproximateLruCache<OrderFingerprint, OrderValidation> results =
+                getValidationResults(orderContext.snapshotVersion());
+        OrderValidation cached = results.get(fingerprint);
+        if (cached != null) {
+            log.info("validateOrder answered from cache: {}", cached.orderValidationCode());
+            return cached;
+        }
+
+        OrderValidation result = checkOrder(orderContext, true);
+        results.put(fingerprint, result);
+        return result;
+    }
 
-        // Get Credit Card information
-        CreditCardInformation creditCardInformation = order.getCreditCardInformation();
-        String cardNumber = creditCardInformation.getCreditCardNumber();
-        String expiryDate = creditCardInformation.getCreditCardExpiry();
-        String cvv = creditCardInformation.getCvv();
+    /**
+     * Validates an order by running the rule chain
+     *
+     * @param orderContext the resolved order to validate
+     * @param record whether the rule chain records the outcome in its statistics
+     * @return the validation result
+     */
+    private OrderValidation checkOrder(OrderContext orderContext, boolean record) {
+        // Get order information
+        Order order = orderContext.order();
+        Pizza[] pizzas = order.getPizzasInOrder();
+        String cardNumber = order.getCreditCardInformation().getCreditCardNumber();
         String cardLast4 = (cardNumber != null && cardNumber.length() >= 4)
                 ? cardNumber.substring(cardNumber.length() - 4)
                 : "N/A";
 
         // Log the order validation attempt
         log.info("validateOrder called: date={}, pizzasCount={}, totalPriceInPence={}, cardLast4={}",
-                orderDate, pizzas != null ? pizzas.length : 0, priceTotalInPence, cardLast4);
-
-        // Check if the order is empty (no pizza)
-        if (pizzas == null || pizzas.length == 0) {
-            log.warn("validateOrder failed: {}", OrderValidationCode.EMPTY_ORDER);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.EMPTY_ORDER);
-        }
-
-        // Check if max pizza count exceeded
-        if (pizzas.length > MAX_PIZZAS_PER_ORDER) {
-            log.warn("validateOrder failed: {}", OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
-        }
+                order.getOrderDate(), pizzas != null ? pizzas.length : 0, order.getPriceTotalInPence(), cardLast4);
 
-        // Check if price of pizza is invalid or not defined
-        OrderValidationCode validationCode = pizzaValidator.isValidPizza(pizzas);
+        OrderValidationCode validationCode = record
+                ? ruleChain.check(orderContext) : ruleChain.checkUnrecorded(orderContext);
         if (validationCode != OrderValidationCode.NO_ERROR) {
-            log.warn("validateOrder failed: {}", validationCode);
+            logFailure(orderContext, validationCode);
             return new OrderValidation(OrderStatus.INVALID, validationCode);
         }
 
-        // Check if pizzas are from single restaurant
-        if (!restaurantValidator.allPizzaFromSingleRestaurant(pizzas)) {
-            log.warn("validateOrder failed: {}", OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
-        }
+        // Return valid order result if passed all checks
+        log.info("validateOrder succeeded: {}", OrderValidationCode.NO_ERROR);
+        return new OrderValidation(OrderStatus.VALID, OrderValidationCode.NO_ERROR);
+    }
 
-        // Check if total price is correct
-        if (!pizzaValidator.isTotalPriceCorrect(pizzas, priceTotalInPence)) {
-            log.warn("validateOrder failed: {}", OrderValidationCode.TOTAL_INCORRECT);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.TOTAL_INCORRECT);
+    /**
+     * Log a failed validation, with the order detail that explains the failing code
+     *
+     * @param orderContext the resolved order
+     * @param validationCode the failing code
+     */
+    private void logFailure(OrderContext orderContext, OrderValidationCode validationCode) {
+        CreditCardInformation creditCardInformation = creditCard(orderContext);
+        switch (validationCode) {
+            case CARD_NUMBER_INVALID -> {
+                String cardNumber = creditCardInformation.getCreditCardNumber();
+                log.warn("validateOrder failed: {} (cardLength={})",
+                        validationCode, cardNumber != null ? cardNumber.length() : 0);
+            }
+            case EXPIRY_DATE_INVALID -> log.warn("validateOrder failed: {} (expiryDate={})",
+                    validationCode, creditCardInformation.getCreditCardExpiry());
+            case CVV_INVALID -> {
+                String cvv = creditCardInformation.getCvv();
+                log.warn("validateOrder failed: {} (cvvLength={})",
+                        validationCode, cvv != null ? cvv.length() : 0);
+            }
+            case RESTAURANT_CLOSED -> log.warn("validateOrder failed: {} (orderDay={})",
+                    validationCode, orderContext.order().getOrderDate().getDayOfWeek());
+            default -> log.warn("validateOrder failed: {}", validationCode);
         }
+    }
 
-        // Check if credit card information is valid (invalid card number)
-        if (!cardNumber.matches("\\d{16}")) {
-            log.warn("validateOrder failed: {} (cardLength={})",
-                    OrderValidationCode.CARD_NUMBER_INVALID,
-                    cardNumber != null ? cardNumber.length() : 0);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.CARD_NUMBER_INVALID);
-        }
+    /**
+     * Create the order validation rules in precedence order:
+     * - Order is not empty
+     * - Order has at most 4 pizzas
+     * - Every pizza is on a menu at a menu price
+     * - All pizzas are from the same restaurant
+     * - Total price is correct
+     * - Credit card number, expiry date and CVV are valid
+     * - Restaurant is open on the order day
+     *
+     * @return the rule chain
+     */
+    private OrderRuleChain createRuleChain() {
+        return new OrderRuleChain(List.of(
+                // The other rules read the pizzas, so an empty order is rejected before they run
+                OrderRule.guard("emptyOrder", context -> {
+                    Pizza[] pizzas = context.order().getPizzasInOrder();
+                    return pizzas == null || pizzas.length == 0
+                            ? OrderValidationCode.EMPTY_ORDER : OrderValidationCode.NO_ERROR;
+                }),
+                OrderRule.of("maxPizzaCount", context ->
+                        context.order().getPizzasInOrder().length > MAX_PIZZAS_PER_ORDER
+                                ? OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED : OrderValidationCode.NO_ERROR),
+                OrderRule.of("pizza", pizzaValidator::isValidPizza),
+                OrderRule.of("singleRestaurant", context ->
+                        restaurantValidator.allPizzaFromSingleRestaurant(context)
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS),
+                OrderRule.of("totalPrice", context ->
+                        pizzaValidator.isTotalPriceCorrect(context)
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.TOTAL_INCORRECT),
+                OrderRule.of("cardNumber", context ->
+                        creditCardValidator.isValidCardNumber(creditCard(context).getCreditCardNumber())
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.CARD_NUMBER_INVALID),
+                OrderRule.of("expiryDate", context ->
+                        creditCardValidator.isValidExpiryDate(creditCard(context).getCreditCardExpiry(),
+                                context.order().getOrderDate())
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.EXPIRY_DATE_INVALID),
+                OrderRule.of("cvv", context ->
+                        creditCardValidator.isValidCvv(creditCard(context).getCvv())
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.CVV_INVALID),
+                OrderRule.of("restaurantOpen", context ->
+                        restaurantValidator.isRestaurantOpen(context, context.order().getOrderDate().getDayOfWeek())
+                                ? OrderValidationCode.NO_ERROR : OrderValidationCode.RESTAURANT_CLOSED)));
+    }
 
-        // Check if credit card information is valid (invalid expiry date)
-        if (!creditCardValidator.isValidExpiryDate(expiryDate, orderDate)) {
-            log.warn("validateOrder failed: {} (expiryDate={})",
-                    OrderValidationCode.EXPIRY_DATE_INVALID,
-                    expiryDate);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.EXPIRY_DATE_INVALID);
-        }
+    private static CreditCardInformation creditCard(OrderContext orderContext) {
+        return orderContext.order().getCreditCardInformation();
+    }
+
+    /**
+     * Get the order validation rule chain, with the statistics of every rule
+     * @return the rule chain
+     */
+    public OrderRuleChain getRuleChain() {
+        return ruleChain;
+    }
 
-        // Check if credit card information is valid (invalid CVV)
-        if (!cvv.matches("\\d{3}")) {
-            log.warn("validateOrder failed: {} (cvvLength={})",
-                    OrderValidationCode.CVV_INVALID,
-                    cvv != null ? cvv.length() : 0);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.CVV_INVALID);
+    /**
+     * Get the validation results cached for a snapshot version, starting an empty cache when the version changes
+     *
+     * @param version the snapshot version
+     * @return the validation results cached for the version
+     */
+    private ApproximateLruCache<OrderFingerprint, OrderValidation> getValidationResults(long version) {
+        ValidationCache cache = validationCache;
+        if (cache.version() == version) {
+            return cache.results();
         }
 
-        // Check if restaurant is closed on the order day
-        DayOfWeek orderDayOfWeek = orderDate.getDayOfWeek();
-        if (!restaurantValidator.isRestaurantOpen(pizzas, orderDayOfWeek)) {
-            log.warn("validateOrder failed: {} (orderDay={})",
-                    OrderValidationCode.RESTAURANT_CLOSED,
-                    orderDayOfWeek);
-            return new OrderValidation(OrderStatus.INVALID, OrderValidationCode.RESTAURANT_CLOSED);
+        synchronized (this) {
+            // Never go back to an older version when requests still hold an older snapshot
+            if (validationCache.version() < version) {
+                validationCache = new ValidationCache(version, new ApproximateLruCache<>(validationCacheSize));
+            } else if (validationCache.version() > version) {
+                return new ApproximateLruCache<>(0);
+            }
+            return validationCache.results();
         }
+    }
 
-        // Return valid order result if passed all checks
-        log.info("validateOrder succeeded: {}", OrderValidationCode.NO_ERROR);
-        return new OrderValidation(OrderStatus.VALID, OrderValidationCode.NO_ERROR);
+    /**
+     * The validation results for one snapshot version
+     * @param version the snapshot version
+     * @param results the validation results by order fingerprint
+     */
+    private record ValidationCache(long version, ApproximateLruCache<OrderFingerprint, OrderValidation> results) {
     }
 }
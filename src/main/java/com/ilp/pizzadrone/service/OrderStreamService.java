@@ -0,0 +1,189 @@
+package com.ilp.pizzadrone.service;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ilp.pizzadrone.constant.OrderStatus;
+import com.ilp.pizzadrone.constant.OrderValidationCode;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.model.OrderValidation;
+import com.ilp.pizzadrone.validation.OrderValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Service class to validate a stream of orders.
+ * Orders are read one at a time from newline-delimited JSON and validated in parallel,
+ * and the results are written back as newline-delimited JSON in the order the orders were read.
+ * At most a fixed window of orders is held at once, so memory does not grow with the size of the stream.
+ */
+@Service
+public class OrderStreamService {
+    // Returned for orders which are missing the data needed to validate them
+    private static final CompletableFuture<OrderValidation> INCOMPLETE_ORDER = CompletableFuture.completedFuture(
+            new OrderValidation(OrderStatus.INVALID, OrderValidationCode.UNDEFINED));
+    // Message of the line ending a stream which is not valid JSON
+    private static final String INVALID_JSON = "Invalid Order: Order stream is not valid JSON";
+    // Message of the line standing in for an order whose validation failed
+    private static final String VALIDATION_FAILED = "Order could not be validated";
+
+    private final OrderService orderService;
+    private final OrderValidator orderValidator;
+    private final ExecutorService orderValidationExecutor;
+    private final ObjectReader orderReader;
+    private final ObjectWriter validationWriter;
+    private final ObjectMapper objectMapper;
+    private final int window;
+    private static final Logger log = LoggerFactory.getLogger(OrderStreamService.class);
+
+    /**
+     * Constructor for the OrderStreamService
+     *
+     * @param window the largest number of orders being validated or waiting to be written at once
+     */
+    public OrderStreamService(OrderService orderService,
+                              OrderValidator orderValidator,
+                              @Qualifier("orderValidationExecutor") ExecutorService orderValidationExecutor,
+                              ObjectMapper objectMapper,
+                              @Value("${pizzadrone.orders.stream.window:256}") int window) {
+        this.orderService = orderService;
+        this.orderValidator = orderValidator;
+        this.orderValidationExecutor = orderValidationExecutor;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(Order.class);
+        // Flushing is left to the stream, so a fast producer does not cost one write per line
+        this.validationWriter = objectMapper.writerFor(OrderValidation.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Validate every order in a newline-delimited JSON stream,
+     * writing one validation result per line in the same order.
+     * Orders missing the data needed to validate them get an INVALID result with an UNDEFINED code.
+     * An order which is not valid JSON ends the stream: the results of the orders before it are written,
+     * followed by a final line with an error message and the line number of the invalid order.
+     * An order whose validation fails gets a line with an error message and its line number in its place,
+     * and the stream goes on with the next order.
+     *
+     * @param in the stream of orders
+     * @param out the stream to write the validation results to
+     * @return the number of orders validated
+     * @throws IOException if reading the orders or writing the results fails
+     */
+    public long validateOrders(InputStream in, OutputStream out) throws IOException {
+        ArrayDeque<PendingOrder> pending = new ArrayDeque<>(window);
+        long count = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Each result ends its own line instead of being separated by a space,
+            // and the caller owns the output stream
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            JacksonException invalidJson = null;
+            try (MappingIterator<Order> orders = orderReader.readValues(in)) {
+                while (orders.hasNextValue()) {
+                    Order order = orders.nextValue();
+                    int line = orders.getParser().currentLocation().getLineNr();
+                    pending.addLast(new PendingOrder(line, validateAsync(order)));
+                    count++;
+
+                    // Write the oldest result once the window is full, so reading never runs far ahead of writing
+                    if (pending.size() >= window) {
+                        writeResult(pending.removeFirst(), generator);
+                    }
+                }
+            } catch (JacksonException e) {
+                // The parser cannot find the next order reliably after invalid JSON, so the stream ends here
+                invalidJson = e;
+            }
+
+            while (!pending.isEmpty()) {
+                writeResult(pending.removeFirst(), generator);
+            }
+
+            if (invalidJson != null) {
+                log.warn("validateOrders stopped at invalid JSON: {}", invalidJson.getOriginalMessage());
+                writeError(INVALID_JSON, invalidJson.getLocation() != null ? invalidJson.getLocation().getLineNr() : -1,
+                        generator);
+            }
+        } finally {
+            // Results nobody will write do not need to be computed
+            pending.forEach(order -> order.result().cancel(false));
+        }
+
+        log.info("validateOrders finished: orders={}", count);
+        return count;
+    }
+
+    /**
+     * Start validating an order on the validation executor
+     */
+    private CompletableFuture<OrderValidation> validateAsync(Order order) {
+        if (!orderValidator.isCompleteOrder(order)) {
+            return INCOMPLETE_ORDER;
+        }
+        return CompletableFuture.supplyAsync(() -> orderService.validateOrder(order), orderValidationExecutor);
+    }
+
+    /**
+     * Write a validation result as one line, flushing what has been written before waiting for it.
+     * A failed validation is written as an error line, since the response has already been committed.
+     */
+    private void writeResult(PendingOrder order, JsonGenerator generator) throws IOException {
+        if (!order.result().isDone()) {
+            generator.flush();
+        }
+
+        OrderValidation validation = order.result().handle((result, e) -> {
+            if (e != null) {
+                log.warn("validateOrders failed to validate the order on line {}: {}", order.line(), e.toString());
+                return null;
+            }
+            return result;
+        }).join();
+
+        if (validation == null) {
+            writeError(VALIDATION_FAILED, order.line(), generator);
+            return;
+        }
+        validationWriter.writeValue(generator, validation);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Write an error line, with the line number of the order it is about if known
+     */
+    private void writeError(String message, int line, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("error", message);
+        if (line > 0) {
+            generator.writeNumberField("line", line);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * An order being validated
+     * @param line the line the order ends on
+     * @param result the validation result
+     */
+    private record PendingOrder(int line, CompletableFuture<OrderValidation> result) {
+    }
+}
@@ -0,0 +1,227 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.util.PreparedRegion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+/**
+ * Admission control for cold delivery path searches.
+ * Each search is given an estimated cost from the straight-line distance and the no-fly zones on the way,
+ * and searches are only started while the total cost of the running searches fits in a budget.
+ * A bounded number of searches may wait for budget for a bounded time, the rest are rejected,
+ * so under overload new requests fail fast instead of every request slowing down together.
+ * Waiting searches hold no thread: each is a future completed once its budget is free.
+ * Cached and coalesced routes never start a search, so they are never queued or rejected.
+ */
+@Component
+public class PathAdmissionController {
+    private final int maxCost;
+    private final int queueLimit;
+    private final Duration maxWait;
+    // Budget not used by running searches, guarded by this
+    private int available;
+    // Searches waiting for budget, admitted first come first served
+    // so a costly search is not starved by cheaper searches arriving after it, guarded by this
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private static final Logger log = LoggerFactory.getLogger(PathAdmissionController.class);
+
+    /**
+     * Constructor for the PathAdmissionController
+     *
+     * @param maxCost the total estimated cost of the searches which may run at once
+     * @param queueLimit the number of searches which may wait for budget
+     * @param maxWait the longest time a search waits for budget before it is rejected
+     */
+    public PathAdmissionController(@Value("${pizzadrone.path.admission.max-cost:4000}") int maxCost,
+                                   @Value("${pizzadrone.path.admission.queue-limit:32}") int queueLimit,
+                                   @Value("${pizzadrone.path.admission.max-wait:2s}") Duration maxWait) {
+        if (maxCost <= 0) {
+            throw new IllegalArgumentException("Admission budget must be positive");
+        }
+        this.maxCost = maxCost;
+        this.queueLimit = queueLimit;
+        this.maxWait = maxWait;
+        this.available = maxCost;
+    }
+
+    /**
+     * Estimate the cost of searching a path.
+     * The cost is the number of moves on the straight line, multiplied for every no-fly zone the line enters,
+     * as the search has to explore around each of them.
+     *
+     * @param from the start of the path
+     * @param to the end of the path
+     * @param noFlyZones the no-fly zones the path has to avoid
+     * @return the estimated cost, at least 1 and at most the budget
+     */
+    public int estimateCost(LngLat from, LngLat to, List<PreparedRegion> noFlyZones) {
+        double distance = Math.hypot(to.lng() - from.lng(), to.lat() - from.lat());
+        long moves = Math.max(1, (long) Math.ceil(distance / DRONE_MOVE_DISTANCE));
+
+        int crossings = 0;
+        for (PreparedRegion noFlyZone : noFlyZones) {
+            if (noFlyZone.isCrossedBy(from.lng(), from.lat(), to.lng(), to.lat())) {
+                crossings++;
+            }
+        }
+
+        // A search costlier than the whole budget still runs, on its own
+        return (int) Math.min(maxCost, moves * (1 + crossings));
+    }
+
+    /**
+     * Admit a search without blocking the calling thread.
+     * The returned future completes once the search is admitted, and every admitted search
+     * must be released with the same cost once it finishes.
+     * Cancelling the future gives up the place in the queue.
+     *
+     * @param cost the estimated cost of the search
+     * @return a future completed on admission, or failed with PlanningCapacityException
+     *         if the queue is full or no budget became free in time
+     */
+    public CompletableFuture<Void> admit(int cost) {
+        Waiter waiter;
+        synchronized (this) {
+            // Admit straight away when there is budget and nobody is waiting ahead
+            if (waiting.isEmpty() && available >= cost) {
+                available -= cost;
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (waiting.size() >= queueLimit) {
+                return CompletableFuture.failedFuture(reject("queue is full", cost, waiting.size()));
+            }
+            waiter = new Waiter(cost, new CompletableFuture<>());
+            waiting.addLast(waiter);
+        }
+
+        // A waiter which gives up or times out leaves the queue, which may let the searches behind it in
+        waiter.admitted().whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    waiting.remove(waiter);
+                }
+                admitWaiting();
+            }
+        });
+        CompletableFuture.delayedExecutor(maxWait.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!waiter.admitted().isDone()) {
+                waiter.admitted().completeExceptionally(reject("no budget became free in time", cost, getQueued()));
+            }
+        });
+        return waiter.admitted();
+    }
+
+    /**
+     * Admit a search, waiting on the calling thread for budget if the running searches use too much of it.
+     * Every admitted search must be released with the same cost once it finishes.
+     *
+     * @param cost the estimated cost of the search
+     * @throws PlanningCapacityException if the queue is full or no budget became free in time
+     * @throws CancellationException if the thread was interrupted while waiting
+     */
+    public void acquire(int cost) {
+        CompletableFuture<Void> admitted = admit(cost);
+        try {
+            admitted.get();
+        } catch (InterruptedException e) {
+            admitted.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Waiting for path planning was interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Release the budget of a finished search, admitting the waiting searches which now fit
+     *
+     * @param cost the estimated cost the search was admitted with
+     */
+    public void release(int cost) {
+        synchronized (this) {
+            available += cost;
+        }
+        admitWaiting();
+    }
+
+    /**
+     * Admit the searches at the head of the queue while the budget fits them.
+     * Futures are completed outside the lock, as completing them starts the searches.
+     */
+    private void admitWaiting() {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            while (!waiting.isEmpty() && available >= waiting.peekFirst().cost()) {
+                Waiter waiter = waiting.pollFirst();
+                available -= waiter.cost();
+                admitted.add(waiter);
+            }
+        }
+        for (Waiter waiter : admitted) {
+            // A waiter which gave up at the same time does not keep its budget
+            if (!waiter.admitted().complete(null)) {
+                release(waiter.cost());
+            }
+        }
+    }
+
+    /**
+     * Get the number of searches waiting for budget
+     * @return the number of queued searches
+     */
+    public synchronized int getQueued() {
+        return waiting.size();
+    }
+
+    /**
+     * Get the number of searches rejected since the application started
+     * @return the number of rejected searches
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Get the estimated cost of the searches running now
+     * @return the budget in use
+     */
+    public synchronized int getCostInUse() {
+        return maxCost - available;
+    }
+
+    /**
+     * Create the rejection for a search.
+     * Every queued search is admitted or rejected within the longest wait,
+     * so a retry after that time no longer queues behind them.
+     */
+    private PlanningCapacityException reject(String reason, int cost, int queued) {
+        rejected.incrementAndGet();
+        log.warn("calcDeliveryPath rejected: {}, cost={}, queued={}", reason, cost, queued);
+        return new PlanningCapacityException("Path planning is at capacity: " + reason, maxWait, null);
+    }
+
+    /**
+     * A search waiting for budget
+     * @param cost the estimated cost of the search
+     * @param admitted the future completed when the search is admitted
+     */
+    private record Waiter(int cost, CompletableFuture<Void> admitted) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.ilp.pizzadrone.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a delivery path search is rejected because path planning is at capacity
+ */
+public class PlanningCapacityException extends RuntimeException {
+    private final Duration retryAfter;
+
+    /**
+     * Constructor for the exception, asking the client to retry after one second
+     *
+     * @param message the reason the search was rejected
+     * @param cause the rejection from the executor, or null
+     */
+    public PlanningCapacityException(String message, Throwable cause) {
+        this(message, Duration.ofSeconds(1), cause);
+    }
+
+    /**
+     * Constructor for the exception
+     *
+     * @param message the reason the search was rejected
+     * @param retryAfter how long the client should wait before retrying
+     * @param cause the rejection from the executor, or null
+     */
+    public PlanningCapacityException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get how long the client should wait before retrying
+     * @return the retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,166 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.constant.PathSearchStrategy;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.util.CalcPathUtils;
+import com.ilp.pizzadrone.util.PreparedRegion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_IS_CLOSE_DISTANCE;
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_MAX_MOVES;
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_MOVE_DISTANCE;
+
+/**
+ * Service class to calculate a path by racing several search strategies concurrently.
+ * The first valid path which meets the quality bound is returned and the remaining searches are cancelled.
+ */
+@Service
+public class PortfolioPathService {
+    private final CalcPathUtils calcPathUtils;
+    private final ExecutorService pathSearchExecutor;
+    private final boolean enabled;
+    private final double qualityBound;
+    private final List<PathSearchStrategy> strategies;
+    private static final Logger log = LoggerFactory.getLogger(PortfolioPathService.class);
+
+    /**
+     * Constructor for the PortfolioPathService
+     *
+     * @param calcPathUtils the path search utility
+     * @param pathSearchExecutor the bounded executor the strategies run on
+     * @param enabled whether the portfolio mode is used for delivery paths
+     * @param qualityBound the largest accepted ratio between the path length and the shortest possible length
+     * @param strategies the strategies to race
+     */
+    public PortfolioPathService(CalcPathUtils calcPathUtils,
+                                @Qualifier("pathSearchExecutor") ExecutorService pathSearchExecutor,
+                                @Value("${pizzadrone.path.portfolio.enabled:false}") boolean enabled,
+                                @Value("${pizzadrone.path.portfolio.quality-bound:1.5}") double qualityBound,
+                                @Value("${pizzadrone.path.portfolio.strategies:A_STAR,WEIGHTED_A_STAR,GREEDY}")
+                                List<PathSearchStrategy> strategies) {
+        this.calcPathUtils = calcPathUtils;
+        this.pathSearchExecutor = pathSearchExecutor;
+        this.enabled = enabled;
+        this.qualityBound = qualityBound;
+        this.strategies = List.copyOf(strategies);
+    }
+
+    /**
+     * Check if the portfolio mode is enabled
+     * @return true if delivery paths should be calculated by the portfolio, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Calculate the path for the drone to fly from the restaurant to Appleton Tower
+     * by running every strategy concurrently.
+     * A path is accepted as soon as it is valid and either comes from a strategy whose weight guarantees the
+     * quality bound, or is itself within the quality bound of the straight-line distance.
+     * If no path meets the bound, the shortest valid path is returned once all strategies have finished.
+     * If the search executor is at capacity, the strategies already started are cancelled
+     * and plain A* runs alone on the calling thread instead of the race.
+     *
+     * @param restaurantLocation    the location of the restaurant
+     * @param appletonTowerLocation the location of Appleton Tower
+     * @param noFlyZones            the prepared no-fly zones
+     * @param centralArea           the prepared central area, or null if there is none
+     * @return the list of LngLat points representing the path, empty if no strategy found a path
+     */
+    public List<LngLat> calculatePath(LngLat restaurantLocation,
+                                      LngLat appletonTowerLocation,
+                                      List<PreparedRegion> noFlyZones,
+                                      PreparedRegion centralArea) {
+        CompletionService<StrategyResult> completionService = new ExecutorCompletionService<>(pathSearchExecutor);
+        List<Future<StrategyResult>> searches = new ArrayList<>();
+
+        // Shortest possible length of any path to Appleton Tower
+        double lowerBound = Math.max(DRONE_MOVE_DISTANCE, Math.hypot(
+                restaurantLocation.lng() - appletonTowerLocation.lng(),
+                restaurantLocation.lat() - appletonTowerLocation.lat()) - DRONE_IS_CLOSE_DISTANCE);
+
+        try {
+            try {
+                for (PathSearchStrategy strategy : strategies) {
+                    searches.add(completionService.submit(() -> new StrategyResult(strategy,
+                            calcPathUtils.calculatePath(restaurantLocation, appletonTowerLocation,
+                                    noFlyZones, centralArea, strategy.getHeuristicWeight()))));
+                }
+            } catch (RejectedExecutionException e) {
+                // Running every strategy here in turn would be slower than any one of them, so run the exact one
+                log.warn("Portfolio path search rejected: search executor is at capacity, running A* alone");
+                searches.forEach(search -> search.cancel(true));
+                return calcPathUtils.calculatePath(restaurantLocation, appletonTowerLocation,
+                        noFlyZones, centralArea, PathSearchStrategy.A_STAR.getHeuristicWeight());
+            }
+
+            StrategyResult best = null;
+            for (int i = 0; i < searches.size(); i++) {
+                StrategyResult result;
+                try {
+                    result = completionService.take().get();
+                } catch (ExecutionException e) {
+                    log.warn("Portfolio path search failed", e.getCause());
+                    continue;
+                }
+
+                // Skip strategies which did not find a path the drone can fly
+                int moves = countMoves(result.path());
+                if (result.path().isEmpty() || moves > DRONE_MAX_MOVES) {
+                    continue;
+                }
+
+                // Accept the first path which meets the quality bound
+                if (result.strategy().getHeuristicWeight() <= qualityBound
+                        || moves * DRONE_MOVE_DISTANCE <= qualityBound * lowerBound) {
+                    log.info("Portfolio path search won by {}: moves={}", result.strategy(), moves);
+                    return result.path();
+                }
+
+                if (best == null || moves < countMoves(best.path())) {
+                    best = result;
+                }
+            }
+
+            return best == null ? List.of() : best.path();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Portfolio path search was interrupted");
+        } finally {
+            // Cancel the searches which are still running
+            searches.forEach(search -> search.cancel(true));
+        }
+    }
+
+    /**
+     * Count the moves in a path, ignoring the final hover at the destination
+     * @param path the path
+     * @return the number of moves between distinct positions
+     */
+    private static int countMoves(List<LngLat> path) {
+        int moves = 0;
+        for (int i = 1; i < path.size(); i++) {
+            if (!path.get(i).equals(path.get(i - 1))) {
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * The path found by one strategy of the portfolio
+     * @param strategy the strategy which found the path
+     * @param path the path found
+     */
+    private record StrategyResult(PathSearchStrategy strategy, List<LngLat> path) {
+    }
+}
@@ -0,0 +1,211 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.model.ReferenceData;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service class to load the reference data into an immutable snapshot.
+ * The data is read from the configured reference data source once at startup and then periodically.
+ * Snapshots are published through an atomic reference, so readers never lock
+ * and always see a complete snapshot whose version only ever increases.
+ * When the source returns the same objects as last time the current snapshot is kept
+ * without rebuilding its indexes.
+ * Every new snapshot is also written to the snapshot file, if one is configured. On a restart the file is
+ * read first, so the service is ready without waiting for the source and keeps running if the source is down.
+ */
+@Service
+public class ReferenceDataLoader {
+    private final ReferenceDataSource source;
+    private final ReferenceSnapshotFile snapshotFile;
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<ReferenceSnapshot> snapshot = new AtomicReference<>();
+    // The data the current snapshot was built from
+    private volatile ReferenceData loadedData;
+    // When the current snapshot was published, in milliseconds since the epoch
+    private volatile long publishedAtMillis;
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataLoader.class);
+
+    /**
+     * Constructor for the ReferenceDataLoader
+     *
+     * @param source the source the reference data is read from
+     * @param snapshotFile the file the last loaded data is kept in
+     */
+    public ReferenceDataLoader(@Qualifier("referenceDataSource") ReferenceDataSource source,
+                               ReferenceSnapshotFile snapshotFile) {
+        this.source = source;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Get the current snapshot, loading it first if none has been loaded yet
+     *
+     * @return the current snapshot
+     * @throws IllegalStateException if no snapshot could be loaded
+     */
+    public ReferenceSnapshot getSnapshot() {
+        ReferenceSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+
+        // Only the first load blocks, so concurrent first requests do not all fetch
+        synchronized (this) {
+            if (snapshot.get() == null && !refresh() && !restoreFromFile()) {
+                throw new IllegalStateException("Reference data is unavailable");
+            }
+            return snapshot.get();
+        }
+    }
+
+    /**
+     * Get the current snapshot without loading one
+     *
+     * @return the current snapshot, or null if none has been loaded yet
+     */
+    public ReferenceSnapshot getLoadedSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Get how long ago the current snapshot was published
+     *
+     * @return the age of the current snapshot in milliseconds, or -1 if none has been loaded yet
+     */
+    public long getSnapshotAgeMillis() {
+        return snapshot.get() == null ? -1 : System.currentTimeMillis() - publishedAtMillis;
+    }
+
+    /**
+     * Load the reference data once the application has started.
+     * If the snapshot file can be restored the source is read in the background instead of delaying startup.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void loadOnStartup() {
+        if (restoreFromFile()) {
+            Thread.ofVirtual().name("reference-data-refresh").start(this::refresh);
+        } else {
+            refresh();
+        }
+    }
+
+    /**
+     * Load the reference data again periodically
+     */
+    @Scheduled(initialDelayString = "${pizzadrone.reference.refresh-interval:PT5M}",
+            fixedDelayString = "${pizzadrone.reference.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Load the reference data again, keeping the current snapshot if loading fails
+     *
+     * @return true if a new snapshot was published, false otherwise
+     */
+    public boolean refresh() {
+        long startNs = System.nanoTime();
+        try {
+            ReferenceData fetched = source.fetch();
+            if (!publish(fetched)) {
+                return false;
+            }
+
+            if (source != snapshotFile) {
+                writeToFile(fetched);
+            }
+            log.info("Reference data loaded from {}: version={}, restaurants={}, noFlyZones={}, tookMs={}",
+                    source.describe(), snapshot.get().version(), fetched.restaurants().size(),
+                    snapshot.get().noFlyZones().size(), (System.nanoTime() - startNs) / 1_000_000);
+            return true;
+        } catch (RuntimeException e) {
+            ReferenceSnapshot current = snapshot.get();
+            log.warn("Reference data refresh from {} failed, keeping version {}: {}",
+                    source.describe(), current == null ? "none" : current.version(), e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Publish the data in the snapshot file if no snapshot has been published yet
+     *
+     * @return true if a snapshot was published from the file, false otherwise
+     */
+    private boolean restoreFromFile() {
+        if (source == snapshotFile || !snapshotFile.exists()) {
+            return false;
+        }
+
+        long startNs = System.nanoTime();
+        try {
+            ReferenceData restored = snapshotFile.fetch();
+            if (snapshot.get() != null || !publish(restored)) {
+                return false;
+            }
+
+            log.info("Reference data restored from {}: version={}, restaurants={}, tookMs={}",
+                    snapshotFile.describe(), snapshot.get().version(), restored.restaurants().size(),
+                    (System.nanoTime() - startNs) / 1_000_000);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Reference data restore from {} failed: {}", snapshotFile.describe(), e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Build a snapshot from the data and publish it, unless the data is empty or unchanged
+     *
+     * @param data the data read from a source
+     * @return true if a new snapshot was published, false otherwise
+     */
+    private boolean publish(ReferenceData data) {
+        if (data.restaurants() == null || data.restaurants().isEmpty()) {
+            log.warn("Reference data skipped: no restaurants fetched");
+            return false;
+        }
+
+        if (snapshot.get() != null && data.isSameAs(loadedData)) {
+            log.debug("Reference data unchanged, keeping version {}", snapshot.get().version());
+            return false;
+        }
+
+        ReferenceSnapshot loaded = ReferenceSnapshot.of(versions.incrementAndGet(),
+                data.restaurants(), data.noFlyZones(), data.centralArea());
+
+        // A slower refresh must not replace a snapshot loaded after it started
+        ReferenceSnapshot published = snapshot.accumulateAndGet(loaded,
+                (current, next) -> current == null || next.version() > current.version() ? next : current);
+        if (published != loaded) {
+            return false;
+        }
+        loadedData = data;
+        publishedAtMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Keep the data in the snapshot file, if one is configured
+     */
+    private void writeToFile(ReferenceData data) {
+        if (!snapshotFile.isEnabled()) {
+            return;
+        }
+
+        try {
+            snapshotFile.write(data);
+        } catch (RuntimeException e) {
+            log.warn("Reference snapshot could not be written to {}: {}", snapshotFile.describe(), e.toString());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.model.ReferenceData;
+
+/**
+ * A source the reference data can be loaded from
+ */
+public interface ReferenceDataSource {
+
+    /**
+     * Read the reference data
+     *
+     * @return the reference data
+     * @throws RuntimeException if the data cannot be read
+     */
+    ReferenceData fetch();
+
+    /**
+     * Get a short description of the source for logging
+     *
+     * @return the description
+     */
+    String describe();
+}
@@ -0,0 +1,323 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.ReferenceData;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary copy of the reference data in a local file.
+ * The file is written after every successful load from another source, and memory-mapped when read,
+ * so a restarted service can serve the last known good data without reaching the REST API.
+ * It can also be used as the only reference data source to run offline.
+ *
+ * <p>The format is a magic number and a format version, followed by the restaurants, the no-fly zones and the
+ * central area. Strings are written as a length and UTF-8 bytes, coordinates as doubles,
+ * and a count of -1 stands for a null array or region.
+ */
+public class ReferenceSnapshotFile implements ReferenceDataSource {
+    private static final int MAGIC = 0x505A4453; // "PZDS"
+    private static final int FORMAT_VERSION = 1;
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+
+    // Fewest bytes each encoded element can take, used to reject counts the file cannot hold
+    private static final int MIN_RESTAURANT_BYTES = 4 + 16 + 4 + 4;
+    private static final int MIN_PIZZA_BYTES = 4 + 4;
+    private static final int MIN_REGION_BYTES = 4 + 4;
+    private static final int LNG_LAT_BYTES = 16;
+
+    private final Path file;
+
+    // The data last read and the file state it was read from
+    private volatile CachedRead cachedRead;
+
+    /**
+     * Constructor for the ReferenceSnapshotFile
+     *
+     * @param file the snapshot file, or null if no snapshot file is kept
+     */
+    public ReferenceSnapshotFile(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Check if a snapshot file is configured
+     *
+     * @return true if a snapshot file is configured, false otherwise
+     */
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Check if a snapshot file is configured and has been written
+     *
+     * @return true if the file can be read, false otherwise
+     */
+    public boolean exists() {
+        return file != null && Files.isRegularFile(file);
+    }
+
+    /**
+     * Read the snapshot file, returning the same instance as before if the file has not changed
+     *
+     * @return the data in the file
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalStateException if the file is not a valid snapshot
+     */
+    @Override
+    public ReferenceData fetch() {
+        if (file == null) {
+            throw new IllegalStateException("No reference snapshot file is configured");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            FileTime modified = Files.getLastModifiedTime(file);
+            long size = channel.size();
+            CachedRead cached = cachedRead;
+            if (cached != null && cached.size() == size && cached.modified().equals(modified)) {
+                return cached.data();
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ReferenceData data = decode(buffer);
+            cachedRead = new CachedRead(modified, size, data);
+            return data;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read reference snapshot " + file, e);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("Reference snapshot " + file + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Write the data to the snapshot file.
+     * The data is written to a temporary file first and moved into place, so readers never see a partial file.
+     *
+     * @param data the data to write
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void write(ReferenceData data) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    encode(data, out);
+                }
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write reference snapshot " + file, e);
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "snapshot file " + file;
+    }
+
+    private static void encode(ReferenceData data, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        out.writeInt(data.restaurants().size());
+        for (Restaurant restaurant : data.restaurants()) {
+            writeString(out, restaurant.name());
+            writeLngLat(out, restaurant.location());
+
+            DayOfWeek[] openingDays = restaurant.openingDays();
+            out.writeInt(openingDays == null ? -1 : openingDays.length);
+            if (openingDays != null) {
+                for (DayOfWeek day : openingDays) {
+                    out.writeByte(day.ordinal());
+                }
+            }
+
+            Pizza[] menu = restaurant.menu();
+            out.writeInt(menu == null ? -1 : menu.length);
+            if (menu != null) {
+                for (Pizza pizza : menu) {
+                    writeString(out, pizza.name());
+                    out.writeInt(pizza.priceInPence());
+                }
+            }
+        }
+
+        List<NamedRegion> noFlyZones = data.noFlyZones() == null ? List.of() : data.noFlyZones();
+        out.writeInt(noFlyZones.size());
+        for (NamedRegion zone : noFlyZones) {
+            writeRegion(out, zone);
+        }
+
+        out.writeBoolean(data.centralArea() != null);
+        if (data.centralArea() != null) {
+            writeRegion(out, data.centralArea());
+        }
+    }
+
+    private static ReferenceData decode(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown snapshot format");
+        }
+
+        int restaurantCount = readCount(buffer, MIN_RESTAURANT_BYTES);
+        List<Restaurant> restaurants = new ArrayList<>(restaurantCount);
+        for (int i = 0; i < restaurantCount; i++) {
+            String name = readString(buffer);
+            LngLat location = readLngLat(buffer);
+
+            int dayCount = readNullableCount(buffer, 1);
+            DayOfWeek[] openingDays = null;
+            if (dayCount >= 0) {
+                openingDays = new DayOfWeek[dayCount];
+                for (int d = 0; d < dayCount; d++) {
+                    openingDays[d] = readDay(buffer);
+                }
+            }
+
+            int pizzaCount = readNullableCount(buffer, MIN_PIZZA_BYTES);
+            Pizza[] menu = null;
+            if (pizzaCount >= 0) {
+                menu = new Pizza[pizzaCount];
+                for (int p = 0; p < pizzaCount; p++) {
+                    menu[p] = new Pizza(readString(buffer), buffer.getInt());
+                }
+            }
+
+            restaurants.add(new Restaurant(name, location, openingDays, menu));
+        }
+
+        int zoneCount = readCount(buffer, MIN_REGION_BYTES);
+        List<NamedRegion> noFlyZones = new ArrayList<>(zoneCount);
+        for (int i = 0; i < zoneCount; i++) {
+            noFlyZones.add(readRegion(buffer));
+        }
+
+        NamedRegion centralArea = buffer.get() != 0 ? readRegion(buffer) : null;
+        return new ReferenceData(List.copyOf(restaurants), List.copyOf(noFlyZones), centralArea);
+    }
+
+    private static void writeRegion(DataOutputStream out, NamedRegion region) throws IOException {
+        writeString(out, region.name());
+        out.writeInt(region.vertices().size());
+        for (LngLat vertex : region.vertices()) {
+            writeLngLat(out, vertex);
+        }
+    }
+
+    private static NamedRegion readRegion(ByteBuffer buffer) {
+        String name = readString(buffer);
+        int vertexCount = readCount(buffer, LNG_LAT_BYTES);
+        List<LngLat> vertices = new ArrayList<>(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            vertices.add(readLngLat(buffer));
+        }
+        return new NamedRegion(name, List.copyOf(vertices));
+    }
+
+    /**
+     * Read the number of elements which follow, checking the rest of the file can hold them
+     *
+     * @param buffer the snapshot contents
+     * @param minElementBytes the fewest bytes one element can take
+     * @return the number of elements
+     * @throws IllegalArgumentException if the count is negative or larger than the rest of the file allows
+     */
+    private static int readCount(ByteBuffer buffer, int minElementBytes) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / minElementBytes) {
+            throw new IllegalArgumentException("Invalid element count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Read the number of elements which follow, where -1 stands for a null array
+     *
+     * @param buffer the snapshot contents
+     * @param minElementBytes the fewest bytes one element can take
+     * @return the number of elements, or -1 for a null array
+     * @throws IllegalArgumentException if the count is below -1 or larger than the rest of the file allows
+     */
+    private static int readNullableCount(ByteBuffer buffer, int minElementBytes) {
+        int count = buffer.getInt();
+        if (count < -1 || count > buffer.remaining() / minElementBytes) {
+            throw new IllegalArgumentException("Invalid element count " + count);
+        }
+        return count;
+    }
+
+    private static DayOfWeek readDay(ByteBuffer buffer) {
+        int day = buffer.get();
+        if (day < 0 || day >= DAYS.length) {
+            throw new IllegalArgumentException("Invalid day index " + day);
+        }
+        return DAYS[day];
+    }
+
+    private static void writeLngLat(DataOutputStream out, LngLat position) throws IOException {
+        out.writeDouble(position.lng());
+        out.writeDouble(position.lat());
+    }
+
+    private static LngLat readLngLat(ByteBuffer buffer) {
+        return new LngLat(buffer.getDouble(), buffer.getDouble());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readNullableCount(buffer, 1);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The data last read and the state of the file when it was read
+     * @param modified the last modification time of the file
+     * @param size the size of the file
+     * @param data the data read
+     */
+    private record CachedRead(FileTime modified, long size, ReferenceData data) {
+    }
+}
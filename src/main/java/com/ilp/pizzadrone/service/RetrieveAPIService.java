@@ -3,29 +3,69 @@ package com.ilp.pizzadrone.service;
 
 import com.ilp.pizzadrone.dto.NamedRegion;
 import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 
 /**
  * Service class to fetch data from the REST API.
  * Includes methods for fetching restaurants, no-fly zones and the central area.
+ * Responses carrying an ETag or Last-Modified header are kept, and later requests for the same URL
+ * are sent as conditional requests. On 304 Not Modified the kept result is returned as the same instance
+ * without reading or parsing a body, so callers can tell the data has not changed.
+ * Each endpoint has its own circuit breaker, so a failing or slow upstream fails fast
+ * instead of tying up the calling threads.
  */
 @Service
 public class RetrieveAPIService {
 
-    private static final String RESTAURANTS_URL = "https://ilp-rest-2024.azurewebsites.net/restaurants";
-    private static final String NO_FLY_ZONES_URL = "https://ilp-rest-2024.azurewebsites.net/noFlyZones";
-    private static final String CENTRAL_AREA_URL = "https://ilp-rest-2024.azurewebsites.net/centralArea";
+    private static final String RESTAURANTS_PATH = "/restaurants";
+    private static final String NO_FLY_ZONES_PATH = "/noFlyZones";
+    private static final String CENTRAL_AREA_PATH = "/centralArea";
     private final RestTemplate restTemplate;
+    private final String restaurantsUrl;
+    private final String noFlyZonesUrl;
+    private final String centralAreaUrl;
+    private final CircuitBreaker restaurantsBreaker;
+    private final CircuitBreaker noFlyZonesBreaker;
+    private final CircuitBreaker centralAreaBreaker;
+
+    // The last validated result for each URL
+    private final Map<String, CachedResponse<?>> cachedResponses = new ConcurrentHashMap<>();
 
     /**
      * Constructor for the RestaurantService
+     *
+     * @param restTemplate the REST template used for the requests
+     * @param baseUrl the base URL of the REST API
+     * @param failureThreshold the number of consecutive failures which opens the circuit breaker of an endpoint
+     * @param openDuration how long a circuit breaker stays open before a probe request is sent
      */
-    public RetrieveAPIService(RestTemplate restTemplate) {
+    public RetrieveAPIService(RestTemplate restTemplate,
+                              @Value("${pizzadrone.api.base-url:https://ilp-rest-2024.azurewebsites.net}") String baseUrl,
+                              @Value("${pizzadrone.api.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                              @Value("${pizzadrone.api.circuit-breaker.open-duration:30s}") Duration openDuration) {
         this.restTemplate = restTemplate;
+        this.restaurantsUrl = baseUrl + RESTAURANTS_PATH;
+        this.noFlyZonesUrl = baseUrl + NO_FLY_ZONES_PATH;
+        this.centralAreaUrl = baseUrl + CENTRAL_AREA_PATH;
+        this.restaurantsBreaker = new CircuitBreaker("restaurants", failureThreshold, openDuration);
+        this.noFlyZonesBreaker = new CircuitBreaker("noFlyZones", failureThreshold, openDuration);
+        this.centralAreaBreaker = new CircuitBreaker("centralArea", failureThreshold, openDuration);
     }
 
     /**
@@ -34,9 +74,10 @@ public class RetrieveAPIService {
      * @return the list of restaurants
      */
     public List<Restaurant> fetchRestaurants() {
-        Restaurant[] restaurants = restTemplate.getForObject(RESTAURANTS_URL, Restaurant[].class);
+        List<Restaurant> restaurants = restaurantsBreaker.call(
+                () -> fetch(restaurantsUrl, Restaurant[].class, List::of));
         assert restaurants != null : "The fetched restaurants should not be null";
-        return List.of(restaurants);
+        return restaurants;
     }
 
     /**
@@ -45,9 +86,10 @@ public class RetrieveAPIService {
      * @return the list of no-fly zones
      */
     public List<NamedRegion> fetchNoFlyZones() {
-        NamedRegion[] noFlyZones = restTemplate.getForObject(NO_FLY_ZONES_URL, NamedRegion[].class);
+        List<NamedRegion> noFlyZones = noFlyZonesBreaker.call(
+                () -> fetch(noFlyZonesUrl, NamedRegion[].class, List::of));
         assert noFlyZones != null : "The fetched no-fly zones should not be null";
-        return List.of(noFlyZones);
+        return noFlyZones;
     }
 
     /**
@@ -56,8 +98,72 @@ public class RetrieveAPIService {
      * @return the central area
      */
     public NamedRegion fetchCentralArea() {
-        NamedRegion centralArea = restTemplate.getForObject(CENTRAL_AREA_URL, NamedRegion.class);
+        NamedRegion centralArea = centralAreaBreaker.call(
+                () -> fetch(centralAreaUrl, NamedRegion.class, Function.identity()));
         assert centralArea != null : "The fetched central area should not be null";
         return centralArea;
     }
+
+    /**
+     * Get the circuit breakers of the endpoints
+     *
+     * @return the circuit breakers
+     */
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return List.of(restaurantsBreaker, noFlyZonesBreaker, centralAreaBreaker);
+    }
+
+    /**
+     * Fetch a URL, revalidating the last result for it if the server sent validators
+     *
+     * @param url the URL to fetch
+     * @param bodyType the type the response body is parsed as
+     * @param converter converts the parsed body to the result
+     * @return the result, or the same instance as last time if the server answered 304 Not Modified
+     * @throws RestClientException if the server answered without a body and there is no earlier result to reuse
+     */
+    @SuppressWarnings("unchecked")
+    private <B, T> T fetch(String url, Class<B> bodyType, Function<B, T> converter) {
+        CachedResponse<T> cached = (CachedResponse<T>) cachedResponses.get(url);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null) {
+            if (cached.eTag() != null) {
+                headers.setIfNoneMatch(cached.eTag());
+            }
+            if (cached.lastModified() >= 0) {
+                headers.setIfModifiedSince(cached.lastModified());
+            }
+        }
+
+        ResponseEntity<B> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), bodyType);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            return cached.result();
+        }
+
+        // A 304 to a request without validators, e.g. from a proxy after a restart, has no result to reuse
+        B body = response.getBody();
+        if (body == null) {
+            throw new RestClientException(url + " answered " + response.getStatusCode().value() + " without a body");
+        }
+
+        T result = converter.apply(body);
+        String eTag = response.getHeaders().getETag();
+        long lastModified = response.getHeaders().getLastModified();
+        if (eTag != null || lastModified >= 0) {
+            cachedResponses.put(url, new CachedResponse<>(eTag, lastModified, result));
+        } else {
+            cachedResponses.remove(url);
+        }
+        return result;
+    }
+
+    /**
+     * A result kept with the validators it was served with
+     * @param eTag the entity tag, or null if none was sent
+     * @param lastModified the last modification time in milliseconds, or -1 if none was sent
+     * @param result the converted response body
+     */
+    private record CachedResponse<T>(String eTag, long lastModified, T result) {
+    }
 }
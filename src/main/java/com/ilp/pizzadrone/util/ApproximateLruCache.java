@@ -0,0 +1,122 @@
+package com.ilp.pizzadrone.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache which threads can read and write concurrently without a shared lock.
+ * Every entry records when it was last used. Once the cache grows past its maximum size,
+ * the least recently used tenth of the entries is dropped in one pass.
+ * Eviction only approximates LRU: entries used while a pass runs may still be dropped,
+ * and the cache may briefly hold a few more entries than its maximum.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ApproximateLruCache<K, V> {
+    // Share of the entries dropped in one pass, so the cost of a pass is spread over many puts
+    private static final double EVICTION_FRACTION = 0.1;
+
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    // Only one thread evicts at a time, the others carry on without waiting for it
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Constructor for the cache
+     *
+     * @param maxSize the largest number of entries kept
+     */
+    public ApproximateLruCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    /**
+     * Constructor for the cache with a custom clock
+     *
+     * @param maxSize the largest number of entries kept
+     * @param clock the clock stamping the entries when they are used
+     */
+    public ApproximateLruCache(int maxSize, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Get a cached value, marking it as recently used
+     *
+     * @param key the key
+     * @return the value, or null if it is not cached
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastUsed = clock.getAsLong();
+        return entry.value;
+    }
+
+    /**
+     * Cache a value, dropping the least recently used entries if the cache is full
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        if (maxSize <= 0) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, clock.getAsLong()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Get the number of cached entries
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop the least recently used entries until the cache is a tenth below its maximum size
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+
+            long[] stamps = entries.values().stream().mapToLong(entry -> entry.lastUsed).toArray();
+            int evictions = Math.min(stamps.length, Math.max(excess, (int) (maxSize * EVICTION_FRACTION)));
+            Arrays.sort(stamps);
+            long threshold = stamps[evictions - 1];
+            entries.values().removeIf(entry -> entry.lastUsed <= threshold);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * A cached value and when it was last used
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastUsed;
+
+        private Entry(V value, long lastUsed) {
+            this.value = value;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Utility class for encoding a flight path into a compact binary format.
+ * Every coordinate is stored as a fixed-point integer (degrees * 10^7) and
+ * every point as the zig-zag varint delta of its longitude and latitude from the previous point.
+ * The first point is a delta from (0, 0). The stream may start with a varint holding the number of points.
+ */
+public class BinaryPathEncoder {
+    /**
+     * the media type clients send in the Accept header to receive this format
+     */
+    public static final String MEDIA_TYPE = "application/x-pizzadrone-path";
+
+    /**
+     * the factor applied to a coordinate in degrees to get its fixed-point value
+     */
+    public static final double COORDINATE_SCALE = 1e7;
+
+    /**
+     * Encode a flight path
+     * @param flightPath the flight path as a list of LngLat
+     * @param lengthPrefixed whether to write the number of points before the points
+     * @return the encoded path
+     */
+    public static byte[] encode(List<LngLat> flightPath, boolean lengthPrefixed) {
+        // A drone step changes each coordinate by at most 1500 units, which fits in two varint bytes
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + flightPath.size() * 4);
+
+        if (lengthPrefixed) {
+            writeVarint(out, flightPath.size());
+        }
+
+        long previousLng = 0;
+        long previousLat = 0;
+        for (LngLat point : flightPath) {
+            long lng = Math.round(point.lng() * COORDINATE_SCALE);
+            long lat = Math.round(point.lat() * COORDINATE_SCALE);
+            writeVarint(out, zigZag(lng - previousLng));
+            writeVarint(out, zigZag(lat - previousLat));
+            previousLng = lng;
+            previousLat = lat;
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Map a signed value to an unsigned one so that small magnitudes get small codes
+     * @param value the signed value
+     * @return the zig-zag encoded value
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Write an unsigned value using 7 bits per byte, with the high bit set on all but the last byte
+     * @param out the stream to write to
+     * @param value the unsigned value
+     */
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -1,22 +1,50 @@
 package com.ilp.pizzadrone.util;
 
 import com.ilp.pizzadrone.constant.CompassDirection;
+import com.ilp.pizzadrone.constant.PathSearchStrategy;
 import com.ilp.pizzadrone.dto.LngLat;
 import com.ilp.pizzadrone.dto.NamedRegion;
 import com.ilp.pizzadrone.dto.Node;
-import com.ilp.pizzadrone.model.IsInRegionRequest;
 import com.ilp.pizzadrone.model.LngLatPairRequest;
-import com.ilp.pizzadrone.model.NextPositionRequest;
 import com.ilp.pizzadrone.service.DistanceService;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_MOVE_DISTANCE;
 
 /**
  * Utility class for calculating the path for the drone to fly
  */
 @Component
 public class CalcPathUtils {
+    // Size of the lattice cells used to cache region containment, a fraction of the drone move distance
+    private static final double CELL_SIZE = DRONE_MOVE_DISTANCE / 4;
+
+    // Containment flags stored per lattice cell
+    private static final byte IN_CENTRAL_AREA = 1;
+    private static final byte IN_NO_FLY_ZONE = 2;
+    private static final byte ON_REGION_BORDER = 4;
+
+    // Number of polled nodes between two checks for cancellation
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
+    // Movement offsets of the 16 flying directions (hovering never helps the search)
+    private static final double[] LNG_OFFSETS = new double[CompassDirection.values().length - 1];
+    private static final double[] LAT_OFFSETS = new double[CompassDirection.values().length - 1];
+
+    static {
+        int i = 0;
+        for (CompassDirection direction : CompassDirection.values()) {
+            if (direction == CompassDirection.HOVERING) continue;
+            double radians = Math.toRadians(direction.getAngle());
+            LNG_OFFSETS[i] = DRONE_MOVE_DISTANCE * Math.cos(radians);
+            LAT_OFFSETS[i] = DRONE_MOVE_DISTANCE * Math.sin(radians);
+            i++;
+        }
+    }
+
     private final DistanceService distanceService;
 
     public CalcPathUtils(DistanceService distanceService) {
@@ -36,34 +64,96 @@ public class CalcPathUtils {
                                       LngLat appletonTowerLocation,
                                       List<NamedRegion> noFlyZones,
                                       NamedRegion centralArea) {
+        List<PreparedRegion> preparedNoFlyZones = noFlyZones == null ? List.of()
+                : noFlyZones.stream().map(PreparedRegion::new).toList();
+        PreparedRegion preparedCentralArea = centralArea == null ? null : new PreparedRegion(centralArea);
+
+        return calculatePath(restaurantLocation, appletonTowerLocation, preparedNoFlyZones, preparedCentralArea);
+    }
+
+    /**
+     * Calculate the path for the drone to fly from the restaurant to Appleton Tower
+     * using regions that have already been prepared for containment checks.
+     * Each search state is a position together with whether the path has entered the central area,
+     * so entering the central area on one branch never restricts the other branches.
+     *
+     * @param restaurantLocation    the location of the restaurant
+     * @param appletonTowerLocation the location of Appleton Tower
+     * @param noFlyZones            the prepared no-fly zones
+     * @param centralArea           the prepared central area, or null if there is none
+     * @return the list of LngLat points representing the path
+     */
+    public List<LngLat> calculatePath(LngLat restaurantLocation,
+                                      LngLat appletonTowerLocation,
+                                      List<PreparedRegion> noFlyZones,
+                                      PreparedRegion centralArea) {
+        return calculatePath(restaurantLocation, appletonTowerLocation, noFlyZones, centralArea,
+                PathSearchStrategy.A_STAR.getHeuristicWeight());
+    }
+
+    /**
+     * Calculate the path for the drone to fly from the restaurant to Appleton Tower
+     * with a weighted A* search (f = g + weight * h).
+     * A weight of 1 gives the shortest path, larger weights find a path faster but may take a detour.
+     * The search stops with a CancellationException if the calling thread is interrupted.
+     *
+     * @param restaurantLocation    the location of the restaurant
+     * @param appletonTowerLocation the location of Appleton Tower
+     * @param noFlyZones            the prepared no-fly zones
+     * @param centralArea           the prepared central area, or null if there is none
+     * @param heuristicWeight       the weight applied to the heuristic, at least 1
+     * @return the list of LngLat points representing the path
+     */
+    public List<LngLat> calculatePath(LngLat restaurantLocation,
+                                      LngLat appletonTowerLocation,
+                                      List<PreparedRegion> noFlyZones,
+                                      PreparedRegion centralArea,
+                                      double heuristicWeight) {
         // Initialize fly path list
         List<LngLat> flyPath = new ArrayList<>();
 
+        double originLng = restaurantLocation.lng();
+        double originLat = restaurantLocation.lat();
+        double goalLng = appletonTowerLocation.lng();
+        double goalLat = appletonTowerLocation.lat();
+
         // Using priority queue to store the frontier nodes
         PriorityQueue<Node> frontier = new PriorityQueue<>();
 
-        // Using map to store the visited nodes
-        Map<LngLat, Node> allNodes = new HashMap<>();
+        // Best known node for each position, one map per central area state
+        Map<LngLat, Node> outsideNodes = new HashMap<>();
+        Map<LngLat, Node> insideNodes = new HashMap<>();
 
-        // Flag to check if the drone is inside the central area
-        boolean insideCentralArea = false;
+        // Containment of each lattice cell, computed once per cell
+        Map<Long, Byte> cellFlags = new HashMap<>();
 
         // Add the restaurant location to the frontier
+        long startCell = cellKey(originLng, originLat, originLng, originLat);
+        boolean startInside = (classifyPosition(cellFlags, startCell, originLng, originLat,
+                originLng, originLat, noFlyZones, centralArea) & IN_CENTRAL_AREA) != 0;
         Node startNode = new Node(restaurantLocation, 0,
-                calcHeuristic(restaurantLocation, appletonTowerLocation), null);
+                heuristicWeight * calcHeuristic(originLng, originLat, goalLng, goalLat), null, startInside);
         frontier.add(startNode);
-        allNodes.put(restaurantLocation, startNode);
+        (startInside ? insideNodes : outsideNodes).put(restaurantLocation, startNode);
 
         Node goalNode = null;
+        int polledNodes = 0;
 
         while (!frontier.isEmpty()) {
+            // Stop searching if the caller is no longer interested in the result
+            if (++polledNodes % CANCELLATION_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Path search was cancelled");
+            }
+
             Node currentNode = frontier.poll();
             LngLat currentPosition = currentNode.position();
+            double currentLng = currentPosition.lng();
+            double currentLat = currentPosition.lat();
 
-            // if the drone entered the central area, update the flag
-            if (!insideCentralArea && distanceService.isInRegionChecker(
-                    new IsInRegionRequest(currentPosition, centralArea))) {
-                insideCentralArea = true;
+            // Skip nodes which have been superseded by a cheaper path to the same state
+            Map<LngLat, Node> currentNodes = currentNode.insideCentralArea() ? insideNodes : outsideNodes;
+            if (currentNodes.get(currentPosition) != currentNode) {
+                continue;
             }
 
             // If the drone reached Appleton Tower, stop searching
@@ -73,66 +163,159 @@ public class CalcPathUtils {
             }
 
             // Expand neighbors
-            for (CompassDirection direction : CompassDirection.values()) {
-                LngLat nextPosition = distanceService.calcNextPosition(
-                        new NextPositionRequest(currentPosition, direction.getAngle()));
+            for (int i = 0; i < LNG_OFFSETS.length; i++) {
+                double nextLng = currentLng + LNG_OFFSETS[i];
+                double nextLat = currentLat + LAT_OFFSETS[i];
+                long nextCell = cellKey(nextLng, nextLat, originLng, originLat);
+                byte flags = classifyPosition(cellFlags, nextCell, nextLng, nextLat,
+                        originLng, originLat, noFlyZones, centralArea);
 
-                // Skip positions outside the central area if drone entered central area
-                if (insideCentralArea && !distanceService.isInRegionChecker(
-                        new IsInRegionRequest(nextPosition, centralArea))) {
+                // Skip no-fly zones
+                if ((flags & IN_NO_FLY_ZONE) != 0) {
                     continue;
                 }
 
-                // Skip no-fly zones
-                if (isInNoFlyZone(nextPosition, noFlyZones)) {
+                // Skip positions outside the central area once this path entered the central area
+                boolean nextInCentralArea = (flags & IN_CENTRAL_AREA) != 0;
+                if (currentNode.insideCentralArea() && !nextInCentralArea) {
                     continue;
                 }
 
-                double g = currentNode.g() + distanceService.calcEuclidDist(
-                        new LngLatPairRequest(currentPosition, nextPosition));
-                double h = calcHeuristic(nextPosition, appletonTowerLocation);
+                double g = currentNode.g() + DRONE_MOVE_DISTANCE;
+                double h = calcHeuristic(nextLng, nextLat, goalLng, goalLat);
 
-                // If the node is already visited and the new path is not better
-                if (allNodes.containsKey(nextPosition) && g >= allNodes.get(nextPosition).g()) {
+                // If the state is already known and the new path is not better
+                boolean nextInside = currentNode.insideCentralArea() || nextInCentralArea;
+                Map<LngLat, Node> nextNodes = nextInside ? insideNodes : outsideNodes;
+                LngLat nextPosition = new LngLat(nextLng, nextLat);
+                Node knownNode = nextNodes.get(nextPosition);
+                if (knownNode != null && g >= knownNode.g()) {
                     continue;
                 }
 
-                Node nextNode = new Node(nextPosition, g, h, currentNode);
+                Node nextNode = new Node(nextPosition, g, heuristicWeight * h, currentNode, nextInside);
                 frontier.add(nextNode);
-                allNodes.put(nextPosition, nextNode);
+                nextNodes.put(nextPosition, nextNode);
             }
         }
 
         // Reconstruct the path from the goal node
-        if (goalNode != null) {
-            while (goalNode != null) {
-                flyPath.add(0, goalNode.position());
-                goalNode = goalNode.parent();
-            }
+        while (goalNode != null) {
+            flyPath.add(goalNode.position());
+            goalNode = goalNode.parent();
         }
+        Collections.reverse(flyPath);
 
         return flyPath;
     }
 
     /**
      * Heuristic function for A* (straight-line distance to goal)
-     * @param current the current position
-     * @param goal the goal position
+     * @param lng the current longitude
+     * @param lat the current latitude
+     * @param goalLng the goal longitude
+     * @param goalLat the goal latitude
      * @return the heuristic value
      */
-    private double calcHeuristic(LngLat current, LngLat goal) {
-        return distanceService.calcEuclidDist(new LngLatPairRequest(current, goal));
+    private static double calcHeuristic(double lng, double lat, double goalLng, double goalLat) {
+        double dLng = lng - goalLng;
+        double dLat = lat - goalLat;
+        return Math.sqrt(dLng * dLng + dLat * dLat);
+    }
+
+    /**
+     * Get the key of the lattice cell containing a position, relative to the search origin
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param originLng the longitude of the search origin
+     * @param originLat the latitude of the search origin
+     * @return the packed cell coordinates
+     */
+    private static long cellKey(double lng, double lat, double originLng, double originLat) {
+        long x = Math.round((lng - originLng) / CELL_SIZE);
+        long y = Math.round((lat - originLat) / CELL_SIZE);
+        return (x << 32) | (y & 0xffffffffL);
     }
 
     /**
-     * Check if a position is valid (inside Central Area, outside no-fly zones, not visited)
-     * @param position the position to check
-     * @param noFlyZones the list of no-fly zones
-     * @return true if the position is valid, false otherwise
+     * Get the containment flags of a position.
+     * The containment of each lattice cell is computed the first time the cell is seen;
+     * only positions in cells crossed by a region border are checked individually.
+     * @param cellFlags the flags of the cells seen so far
+     * @param cell the key of the cell
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param originLng the longitude of the search origin
+     * @param originLat the latitude of the search origin
+     * @param noFlyZones the prepared no-fly zones
+     * @param centralArea the prepared central area, or null if there is none
+     * @return the containment flags of the position
      */
-    private boolean isInNoFlyZone(LngLat position, List<NamedRegion> noFlyZones) {
-        // Check if position is inside no-fly zones
-        return noFlyZones.stream().anyMatch(zone ->
-                distanceService.isInRegionChecker(new IsInRegionRequest(position, zone)));
+    private static byte classifyPosition(Map<Long, Byte> cellFlags, long cell, double lng, double lat,
+                                         double originLng, double originLat,
+                                         List<PreparedRegion> noFlyZones, PreparedRegion centralArea) {
+        Byte known = cellFlags.get(cell);
+        if (known == null) {
+            known = classifyCell(cell, originLng, originLat, noFlyZones, centralArea);
+            cellFlags.put(cell, known);
+        }
+
+        if ((known & ON_REGION_BORDER) == 0) {
+            return known;
+        }
+        return containmentFlags(lng, lat, noFlyZones, centralArea);
+    }
+
+    /**
+     * Compute the containment flags of a whole lattice cell
+     * @param cell the key of the cell
+     * @param originLng the longitude of the search origin
+     * @param originLat the latitude of the search origin
+     * @param noFlyZones the prepared no-fly zones
+     * @param centralArea the prepared central area, or null if there is none
+     * @return the containment flags of the cell, or ON_REGION_BORDER if a border passes through it
+     */
+    private static byte classifyCell(long cell, double originLng, double originLat,
+                                     List<PreparedRegion> noFlyZones, PreparedRegion centralArea) {
+        double centerLng = originLng + (cell >> 32) * CELL_SIZE;
+        double centerLat = originLat + (int) cell * CELL_SIZE;
+
+        // Bounds of the cell, widened by half a cell on each side to stay conservative
+        double minLng = centerLng - CELL_SIZE, maxLng = centerLng + CELL_SIZE;
+        double minLat = centerLat - CELL_SIZE, maxLat = centerLat + CELL_SIZE;
+
+        if (centralArea != null && !centralArea.isUniform(minLng, minLat, maxLng, maxLat)) {
+            return ON_REGION_BORDER;
+        }
+        for (PreparedRegion zone : noFlyZones) {
+            if (!zone.isUniform(minLng, minLat, maxLng, maxLat)) {
+                return ON_REGION_BORDER;
+            }
+        }
+
+        return containmentFlags(centerLng, centerLat, noFlyZones, centralArea);
+    }
+
+    /**
+     * Compute the containment flags of a single position
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param noFlyZones the prepared no-fly zones
+     * @param centralArea the prepared central area, or null if there is none
+     * @return the containment flags of the position
+     */
+    private static byte containmentFlags(double lng, double lat,
+                                         List<PreparedRegion> noFlyZones, PreparedRegion centralArea) {
+        byte flags = 0;
+        if (centralArea != null && centralArea.contains(lng, lat)) {
+            flags |= IN_CENTRAL_AREA;
+        }
+        for (PreparedRegion zone : noFlyZones) {
+            if (zone.contains(lng, lat)) {
+                flags |= IN_NO_FLY_ZONE;
+                break;
+            }
+        }
+        return flags;
     }
-}
\ No newline at end of file
+}
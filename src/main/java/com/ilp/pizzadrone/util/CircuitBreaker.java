@@ -0,0 +1,144 @@
+package com.ilp.pizzadrone.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A circuit breaker around calls to a remote service.
+ * After a number of consecutive failures the breaker opens and calls fail immediately
+ * instead of waiting for the remote service. Once the open duration has passed the breaker is half-open:
+ * a single probe call is let through, which closes the breaker if it succeeds and opens it again if it fails.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the breaker
+     */
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNs;
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNs;
+    private boolean probeInFlight;
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    /**
+     * Constructor for the circuit breaker
+     *
+     * @param name the name of the protected call, used in error messages and metrics
+     * @param failureThreshold the number of consecutive failures which opens the breaker
+     * @param openDuration how long the breaker stays open before a probe call is let through
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, System::nanoTime);
+    }
+
+    /**
+     * Constructor for the circuit breaker with a custom clock
+     *
+     * @param name the name of the protected call, used in error messages and metrics
+     * @param failureThreshold the number of consecutive failures which opens the breaker
+     * @param openDuration how long the breaker stays open before a probe call is let through
+     * @param nanoClock the clock giving the current time in nanoseconds
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1");
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNs = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Run a call through the breaker
+     *
+     * @param call the call to the remote service
+     * @return the result of the call
+     * @throws CircuitBreakerOpenException if the breaker is open and the call was not made
+     */
+    public <T> T call(Supplier<T> call) {
+        acquirePermission();
+
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            onFailure();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    /**
+     * Get the name of the protected call
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the current state, moving an open breaker to half-open once the open duration has passed
+     *
+     * @return the current state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNs >= openDurationNs) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Get the number of calls which failed fast because the breaker was open
+     *
+     * @return the number of rejected calls
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    private synchronized void acquirePermission() {
+        State current = getState();
+        if (current == State.CLOSED) {
+            return;
+        }
+
+        // Only one probe at a time while half-open, everyone else fails fast
+        if (current == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return;
+        }
+
+        rejectedCalls.incrementAndGet();
+        throw new CircuitBreakerOpenException(name);
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNs = nanoClock.getAsLong();
+        }
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ilp.pizzadrone.util;
+
+/**
+ * Thrown when a call is not made because its circuit breaker is open
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    /**
+     * Constructor for the exception
+     *
+     * @param name the name of the protected call
+     */
+    public CircuitBreakerOpenException(String name) {
+        super("Circuit breaker for " + name + " is open");
+    }
+}
@@ -0,0 +1,94 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.constant.CompassDirection;
+import com.ilp.pizzadrone.dto.CompactPath;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.model.NextPositionRequest;
+import com.ilp.pizzadrone.service.DistanceService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for converting between a flight path and its compact move-list form
+ */
+@Component
+public class CompactPathUtils {
+    private static final CompassDirection[] DIRECTIONS = CompassDirection.values();
+
+    private final DistanceService distanceService;
+
+    public CompactPathUtils(DistanceService distanceService) {
+        this.distanceService = distanceService;
+    }
+
+    /**
+     * Compress a flight path into its start point and the direction code of every move
+     *
+     * @param flightPath the flight path as a list of LngLat
+     * @return the compact path, or CompactPath.EMPTY if the flight path is empty
+     * @throws IllegalArgumentException if a step of the path is not a single drone move
+     */
+    public CompactPath compress(List<LngLat> flightPath) {
+        if (flightPath == null || flightPath.isEmpty()) {
+            return CompactPath.EMPTY;
+        }
+
+        byte[] moves = new byte[flightPath.size() - 1];
+        for (int i = 1; i < flightPath.size(); i++) {
+            LngLat from = flightPath.get(i - 1);
+            LngLat to = flightPath.get(i);
+            moves[i - 1] = (byte) findDirection(from, to).ordinal();
+        }
+
+        return new CompactPath(flightPath.getFirst(), moves);
+    }
+
+    /**
+     * Expand a compact path back into the full flight path by replaying its moves
+     *
+     * @param compactPath the compact path
+     * @return the flight path as a list of LngLat
+     * @throws IllegalArgumentException if a move is not a valid direction code
+     */
+    public List<LngLat> expand(CompactPath compactPath) {
+        byte[] moves = compactPath.moves();
+        List<LngLat> flightPath = new ArrayList<>(moves.length + 1);
+        LngLat position = compactPath.start();
+        flightPath.add(position);
+
+        for (byte move : moves) {
+            if (move < 0 || move >= DIRECTIONS.length) {
+                throw new IllegalArgumentException("Invalid move code: " + move);
+            }
+            position = distanceService.calcNextPosition(
+                    new NextPositionRequest(position, DIRECTIONS[move].getAngle()));
+            flightPath.add(position);
+        }
+
+        return flightPath;
+    }
+
+    /**
+     * Find the direction of the move between two consecutive positions of a path
+     * @param from the position before the move
+     * @param to the position after the move
+     * @return the direction which moves the drone from one position exactly to the other
+     */
+    private CompassDirection findDirection(LngLat from, LngLat to) {
+        if (from.equals(to)) {
+            return CompassDirection.HOVERING;
+        }
+
+        // Find the closest compass direction and check that replaying it gives the same position
+        double angle = Math.toDegrees(Math.atan2(to.lat() - from.lat(), to.lng() - from.lng()));
+        CompassDirection direction = CompassDirection.getFlyDirection(angle < 0 ? angle + 360 : angle);
+        LngLat replayed = distanceService.calcNextPosition(new NextPositionRequest(from, direction.getAngle()));
+        if (!replayed.equals(to)) {
+            throw new IllegalArgumentException("Path step is not a single drone move");
+        }
+
+        return direction;
+    }
+}
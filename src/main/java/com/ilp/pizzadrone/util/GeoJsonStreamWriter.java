@@ -0,0 +1,217 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a GeoJSON FeatureCollection straight to an output stream as UTF-8,
+ * without building an object graph or an intermediate string.
+ * Output goes through a fixed-size buffer and numbers are formatted into a reused builder,
+ * so memory use does not depend on the number of coordinates written.
+ * The writer does not close the underlying stream.
+ */
+public class GeoJsonStreamWriter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+
+    // Reused for formatting every number
+    private final StringBuilder number = new StringBuilder(32);
+
+    private int featureCount = 0;
+
+    /**
+     * Constructor for the GeoJsonStreamWriter
+     * @param out the stream to write to
+     */
+    public GeoJsonStreamWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Start the FeatureCollection, must be called before writing any feature
+     * @throws IOException if writing to the stream fails
+     */
+    public void beginFeatureCollection() throws IOException {
+        writeAscii("{\"type\":\"FeatureCollection\",\"features\":[");
+    }
+
+    /**
+     * Close the FeatureCollection and flush everything written to the stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void endFeatureCollection() throws IOException {
+        writeAscii("]}");
+        flush();
+    }
+
+    /**
+     * Write a feature with a LineString geometry
+     * @param coordinates the points of the line
+     * @param name the name property of the feature
+     * @param color the color property of the feature
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeLineStringFeature(List<LngLat> coordinates, String name, String color) throws IOException {
+        beginFeature();
+        writeAscii("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":");
+        writeCoordinates(coordinates);
+        writeAscii("},");
+        writeProperties(name, color);
+        writeAscii("}");
+    }
+
+    /**
+     * Write a feature with a Polygon geometry made of a single outer ring
+     * @param ring the vertices of the polygon, closed automatically if the last vertex differs from the first
+     * @param name the name property of the feature
+     * @param color the color property of the feature
+     * @throws IOException if writing to the stream fails
+     */
+    public void writePolygonFeature(List<LngLat> ring, String name, String color) throws IOException {
+        beginFeature();
+        writeAscii("{\"type\":\"Feature\",\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[");
+        if (!ring.isEmpty() && !ring.getFirst().equals(ring.getLast())) {
+            List<LngLat> closedRing = new ArrayList<>(ring);
+            closedRing.add(ring.getFirst());
+            writeCoordinates(closedRing);
+        } else {
+            writeCoordinates(ring);
+        }
+        writeAscii("]},");
+        writeProperties(name, color);
+        writeAscii("}");
+    }
+
+    /**
+     * Write a feature which has already been serialised, as UTF-8 JSON bytes
+     * @param featureJson the serialised feature
+     * @throws IOException if writing to the stream fails
+     */
+    public void writeRawFeature(byte[] featureJson) throws IOException {
+        beginFeature();
+        writeBytes(featureJson);
+    }
+
+    /**
+     * Flush the buffered output to the stream
+     * @throws IOException if writing to the stream fails
+     */
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    /**
+     * Write the separator before a feature if it is not the first one
+     */
+    private void beginFeature() throws IOException {
+        if (featureCount++ > 0) {
+            writeByte(',');
+        }
+    }
+
+    /**
+     * Write a list of points as an array of [lng, lat] positions
+     */
+    private void writeCoordinates(List<LngLat> coordinates) throws IOException {
+        writeByte('[');
+        for (int i = 0; i < coordinates.size(); i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            LngLat point = coordinates.get(i);
+            writeByte('[');
+            writeNumber(point.lng());
+            writeByte(',');
+            writeNumber(point.lat());
+            writeByte(']');
+        }
+        writeByte(']');
+    }
+
+    /**
+     * Write the name and color properties of a feature
+     */
+    private void writeProperties(String name, String color) throws IOException {
+        writeAscii("\"properties\":{\"name\":");
+        writeString(name);
+        writeAscii(",\"color\":");
+        writeString(color);
+        writeByte('}');
+    }
+
+    /**
+     * Write a number using the reused builder, which only ever holds ASCII characters
+     */
+    private void writeNumber(double value) throws IOException {
+        number.setLength(0);
+        number.append(value);
+        for (int i = 0; i < number.length(); i++) {
+            writeByte(number.charAt(i));
+        }
+    }
+
+    /**
+     * Write a JSON string literal, escaping quotes, backslashes and any non-printable or non-ASCII character
+     */
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c < 0x20 || c >= 0x7F) {
+                writeByte('\\');
+                writeByte('u');
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    writeByte(HEX_DIGITS[(c >> shift) & 0xF]);
+                }
+            } else {
+                writeByte(c);
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
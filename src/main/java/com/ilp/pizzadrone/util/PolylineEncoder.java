@@ -0,0 +1,58 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+
+import java.util.List;
+
+/**
+ * Utility class for encoding a flight path in Google's encoded polyline format.
+ * See <a href="https://developers.google.com/maps/documentation/utilities/polylinealgorithm">polyline algorithm</a>.
+ * Points are written latitude first, with 5 decimal places, as deltas from the previous point.
+ */
+public class PolylineEncoder {
+    /**
+     * the value of the encoding request parameter selecting this format
+     */
+    public static final String ENCODING_NAME = "polyline";
+
+    private static final double PRECISION = 1e5;
+
+    /**
+     * Encode a flight path as a polyline
+     * @param flightPath the flight path as a list of LngLat
+     * @return the encoded polyline
+     */
+    public static String encode(List<LngLat> flightPath) {
+        // A drone step moves each coordinate by at most about 15 units, usually a single character
+        StringBuilder encoded = new StringBuilder(16 + flightPath.size() * 2);
+
+        long previousLat = 0;
+        long previousLng = 0;
+        for (LngLat point : flightPath) {
+            double lngValue = point.lng();
+            double latValue = point.lat();
+            long lat = Math.round(latValue * PRECISION);
+            long lng = Math.round(lngValue * PRECISION);
+            encodeValue(encoded, lat - previousLat);
+            encodeValue(encoded, lng - previousLng);
+            previousLat = lat;
+            previousLng = lng;
+        }
+
+        return encoded.toString();
+    }
+
+    /**
+     * Append one signed value in 5-bit chunks, each offset by 63 to form a printable character
+     * @param encoded the builder to append to
+     * @param value the signed value
+     */
+    private static void encodeValue(StringBuilder encoded, long value) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1F)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+}
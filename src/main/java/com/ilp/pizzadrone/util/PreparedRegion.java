@@ -0,0 +1,153 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.util.List;
+
+/**
+ * A region prepared once for repeated containment checks.
+ * Builds the polygon path and bounding box a single time instead of on every check,
+ * while keeping the same "inside or on the border" semantics as DistanceService.isInRegionChecker.
+ */
+public final class PreparedRegion {
+    private final NamedRegion region;
+    private final List<LngLat> vertices;
+    private final Path2D path;
+    private final double minLng;
+    private final double maxLng;
+    private final double minLat;
+    private final double maxLat;
+
+    /**
+     * Constructor for the prepared region
+     * @param region the region to prepare
+     */
+    public PreparedRegion(NamedRegion region) {
+        if (region == null || region.vertices() == null || region.vertices().isEmpty()) {
+            throw new IllegalArgumentException("Vertices list cannot be null or empty");
+        }
+
+        this.region = region;
+        this.vertices = region.vertices();
+
+        Path2D regionPath = new Path2D.Double();
+        regionPath.moveTo(vertices.getFirst().lng(), vertices.getFirst().lat());
+        for (int i = 1; i < vertices.size(); i++) {
+            regionPath.lineTo(vertices.get(i).lng(), vertices.get(i).lat());
+        }
+        regionPath.closePath();
+        this.path = regionPath;
+
+        double lngMin = Double.MAX_VALUE, lngMax = -Double.MAX_VALUE;
+        double latMin = Double.MAX_VALUE, latMax = -Double.MAX_VALUE;
+        for (LngLat vertex : vertices) {
+            lngMin = Math.min(lngMin, vertex.lng());
+            lngMax = Math.max(lngMax, vertex.lng());
+            latMin = Math.min(latMin, vertex.lat());
+            latMax = Math.max(latMax, vertex.lat());
+        }
+        this.minLng = lngMin;
+        this.maxLng = lngMax;
+        this.minLat = latMin;
+        this.maxLat = latMax;
+    }
+
+    /**
+     * Get the underlying region
+     * @return the region this object was prepared from
+     */
+    public NamedRegion region() {
+        return region;
+    }
+
+    /**
+     * Check if a position is inside the region or on its border
+     * @param lng longitude of the position
+     * @param lat latitude of the position
+     * @return true if the position is inside the region or on its border, false otherwise
+     */
+    public boolean contains(double lng, double lat) {
+        // Both the polygon and its borders lie within the bounding box
+        if (lng < minLng || lng > maxLng || lat < minLat || lat > maxLat) {
+            return false;
+        }
+
+        if (path.contains(lng, lat)) {
+            return true;
+        }
+
+        // Check for border case
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat vertex1 = vertices.get(i);
+            LngLat vertex2 = vertices.get((i + 1) % vertices.size());
+            if (RegionUtils.isPointOnBorder(vertex1, vertex2, lng, lat)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check if every position in a rectangular cell has the same containment.
+     * This holds when no border of the region can pass through the cell,
+     * so the containment of any position in the cell is the containment of the whole cell.
+     * @param minLng the minimum longitude of the cell
+     * @param minLat the minimum latitude of the cell
+     * @param maxLng the maximum longitude of the cell
+     * @param maxLat the maximum latitude of the cell
+     * @return true if the containment is the same for the whole cell, false otherwise
+     */
+    public boolean isUniform(double minLng, double minLat, double maxLng, double maxLat) {
+        // Cells outside the bounding box are never inside the region
+        if (maxLng < this.minLng || minLng > this.maxLng || maxLat < this.minLat || minLat > this.maxLat) {
+            return true;
+        }
+
+        // A border can only affect positions within the bounds of its two vertices
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat vertex1 = vertices.get(i);
+            LngLat vertex2 = vertices.get((i + 1) % vertices.size());
+            if (maxLng >= Math.min(vertex1.lng(), vertex2.lng()) && minLng <= Math.max(vertex1.lng(), vertex2.lng())
+                    && maxLat >= Math.min(vertex1.lat(), vertex2.lat()) && minLat <= Math.max(vertex1.lat(), vertex2.lat())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Check if the straight line between two positions enters the region
+     * @param fromLng longitude of the start of the line
+     * @param fromLat latitude of the start of the line
+     * @param toLng longitude of the end of the line
+     * @param toLat latitude of the end of the line
+     * @return true if the line crosses a border of the region or starts inside it, false otherwise
+     */
+    public boolean isCrossedBy(double fromLng, double fromLat, double toLng, double toLat) {
+        // A line outside the bounding box cannot enter the region
+        if (Math.max(fromLng, toLng) < minLng || Math.min(fromLng, toLng) > maxLng
+                || Math.max(fromLat, toLat) < minLat || Math.min(fromLat, toLat) > maxLat) {
+            return false;
+        }
+
+        if (contains(fromLng, fromLat)) {
+            return true;
+        }
+
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat vertex1 = vertices.get(i);
+            LngLat vertex2 = vertices.get((i + 1) % vertices.size());
+            if (Line2D.linesIntersect(fromLng, fromLat, toLng, toLat,
+                    vertex1.lng(), vertex1.lat(), vertex2.lng(), vertex2.lat())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ilp.pizzadrone.validation;
+
+import com.ilp.pizzadrone.constant.CompassDirection;
+import com.ilp.pizzadrone.dto.CompactPath;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.DRONE_MAX_MOVES;
+import static com.ilp.pizzadrone.util.PositionValidationUtils.isInvalidPosition;
+
+/**
+ * This class is used to validate the compact path request.
+ * It checks if the start position and the move codes are valid and provided.
+ */
+@Component
+public class CompactPathValidator {
+    /**
+     * Validate the compact path request
+     * @param compactPath the compact path
+     * @return ResponseEntity with error message if request is invalid, null if request is valid
+     */
+    public ResponseEntity<?> validateCompactPath(CompactPath compactPath) {
+        // Check if the start position is not null
+        if (compactPath == null || compactPath.start() == null) {
+            return ResponseEntity.badRequest().body("Invalid Position Data: " +
+                    "start position is missing");
+        }
+
+        // Check if the start position coordinates are valid
+        if (isInvalidPosition(compactPath.start())) {
+            return ResponseEntity.badRequest().body("Invalid Position Data: " +
+                    "Latitude or Longitude are missing or out of range");
+        }
+
+        // Check if the moves are provided and within the battery limit (allowing a final hover)
+        byte[] moves = compactPath.moves();
+        if (moves == null || moves.length > DRONE_MAX_MOVES + 1) {
+            return ResponseEntity.badRequest().body("Invalid Moves: " +
+                    "moves are missing or exceed the maximum number of moves");
+        }
+
+        // Check every move is a compass direction code
+        for (byte move : moves) {
+            if (move < 0 || move >= CompassDirection.values().length) {
+                return ResponseEntity.badRequest().body("Invalid Moves: " +
+                        "Must be compass direction codes between 0 and " + (CompassDirection.values().length - 1));
+            }
+        }
+
+        // Return null if request valid
+        return null;
+    }
+}
@@ -6,9 +6,33 @@ import java.time.LocalDate;
 
 /**
  * Utility class for validating credit card details
+ * The checks read the characters directly instead of matching regular expressions,
+ * so validating a card allocates nothing.
  */
 @Component
 public class CreditCardValidator {
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final int CVV_LENGTH = 3;
+
+    /**
+     * Checks if the credit card number is valid, that is exactly 16 digits.
+     *
+     * @param cardNumber the credit card number
+     * @return True if the credit card number is valid, false otherwise
+     */
+    public boolean isValidCardNumber(String cardNumber) {
+        return isDigits(cardNumber, CARD_NUMBER_LENGTH);
+    }
+
+    /**
+     * Checks if the CVV is valid, that is exactly 3 digits.
+     *
+     * @param cvv the CVV
+     * @return True if the CVV is valid, false otherwise
+     */
+    public boolean isValidCvv(String cvv) {
+        return isDigits(cvv, CVV_LENGTH);
+    }
 
     /**
      * Checks if the credit card expiry date is valid.
@@ -18,20 +42,40 @@ public class CreditCardValidator {
      */
     public boolean isValidExpiryDate(String expiryDate, LocalDate orderDate) {
         // Expiry date should be in MM/YY format
-        if (!expiryDate.matches("\\d{2}/\\d{2}")) {
+        if (expiryDate == null || expiryDate.length() != 5 || expiryDate.charAt(2) != '/'
+                || !isDigit(expiryDate.charAt(0)) || !isDigit(expiryDate.charAt(1))
+                || !isDigit(expiryDate.charAt(3)) || !isDigit(expiryDate.charAt(4))) {
             return false;
         }
 
         // Get expiry month and year
-        String[] parts = expiryDate.split("/");
-        int month = Integer.parseInt(parts[0]);
-        int year = Integer.parseInt(parts[1]) + 2000;
+        int month = (expiryDate.charAt(0) - '0') * 10 + (expiryDate.charAt(1) - '0');
+        int year = 2000 + (expiryDate.charAt(3) - '0') * 10 + (expiryDate.charAt(4) - '0');
 
         // Check month is valid
         if (month < 1 || month > 12) return false;
 
-        // Check if the expiry date is in the future
-        LocalDate expiry = LocalDate.of(year, month, 1).withDayOfMonth(1).plusMonths(1);
-        return expiry.isAfter(orderDate);
+        // The card is valid until the end of the expiry month,
+        // so the order month must not be after the expiry month
+        return orderDate.getYear() * 12L + orderDate.getMonthValue() <= year * 12L + month;
+    }
+
+    /**
+     * Check if a string is exactly a number of ASCII digits, as the regular expression \d{n} does
+     */
+    private static boolean isDigits(String value, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 }
@@ -0,0 +1,38 @@
+package com.ilp.pizzadrone.validation;
+
+import com.ilp.pizzadrone.constant.OrderValidationCode;
+import com.ilp.pizzadrone.model.OrderContext;
+
+import java.util.function.Function;
+
+/**
+ * One check of the order validation
+ *
+ * @param name  the name of the rule, used in the rule statistics
+ * @param guard whether the rule must run before every other rule because they rely on it passing
+ * @param check the check, returning NO_ERROR if the order passes and the validation code otherwise
+ */
+public record OrderRule(String name, boolean guard, Function<OrderContext, OrderValidationCode> check) {
+
+    /**
+     * Create a rule which other rules do not rely on
+     *
+     * @param name  the name of the rule
+     * @param check the check, returning NO_ERROR if the order passes and the validation code otherwise
+     * @return the rule
+     */
+    public static OrderRule of(String name, Function<OrderContext, OrderValidationCode> check) {
+        return new OrderRule(name, false, check);
+    }
+
+    /**
+     * Create a rule which must pass before any other rule is run
+     *
+     * @param name  the name of the rule
+     * @param check the check, returning NO_ERROR if the order passes and the validation code otherwise
+     * @return the rule
+     */
+    public static OrderRule guard(String name, Function<OrderContext, OrderValidationCode> check) {
+        return new OrderRule(name, true, check);
+    }
+}
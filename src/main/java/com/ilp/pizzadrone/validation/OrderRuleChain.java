@@ -0,0 +1,232 @@
+package com.ilp.pizzadrone.validation;
+
+import com.ilp.pizzadrone.constant.OrderValidationCode;
+import com.ilp.pizzadrone.model.OrderContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The order validation rules, run in an order learned from the traffic.
+ * The rules are given in precedence order: when several rules fail, the code of the first one is reported.
+ * The chain records how often each rule rejects an order and how long it takes,
+ * and runs cheap rules which often reject first, so invalid orders are rejected with less work.
+ * Once a rule has failed only rules with a higher precedence still run, as only they can change the reported code,
+ * so the reported code is always the one running the rules in precedence order would give.
+ * Guard rules always run first, in precedence order, because the other rules rely on them passing.
+ */
+public final class OrderRuleChain {
+    // One validation in this many is timed, so timing costs little
+    private static final int TIMING_SAMPLE_RATE = 16;
+    // The evaluation order is recomputed after this many timed validations
+    private static final int REORDER_INTERVAL = 64;
+    // Lowest rejection rate used when ranking, so rules which never reject still rank by cost
+    private static final double MIN_REJECTION_RATE = 1e-3;
+
+    private final OrderRule[] rules;
+    private final RuleStats[] stats;
+    private final int guards;
+    private final AtomicLong timedValidations = new AtomicLong();
+    // Indexes of the rules after the guards, in the order they are run
+    private volatile int[] evaluationOrder;
+
+    /**
+     * Constructor for the rule chain
+     *
+     * @param rules the rules in precedence order, guards first
+     */
+    public OrderRuleChain(List<OrderRule> rules) {
+        this.rules = rules.toArray(OrderRule[]::new);
+        this.stats = new RuleStats[this.rules.length];
+
+        int guardCount = 0;
+        for (int i = 0; i < this.rules.length; i++) {
+            stats[i] = new RuleStats(this.rules[i].name());
+            if (this.rules[i].guard()) {
+                if (guardCount != i) {
+                    throw new IllegalArgumentException("Guard rules must come before all other rules");
+                }
+                guardCount++;
+            }
+        }
+        this.guards = guardCount;
+
+        int[] order = new int[this.rules.length - guards];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = guards + i;
+        }
+        this.evaluationOrder = order;
+    }
+
+    /**
+     * Run the rules on an order
+     *
+     * @param orderContext the resolved order
+     * @return NO_ERROR if every rule passes, otherwise the code of the failing rule with the highest precedence
+     */
+    public OrderValidationCode check(OrderContext orderContext) {
+        return check(orderContext, true);
+    }
+
+    /**
+     * Run the rules on an order without recording their outcome, so the statistics and the evaluation order
+     * only reflect real traffic
+     *
+     * @param orderContext the resolved order
+     * @return NO_ERROR if every rule passes, otherwise the code of the failing rule with the highest precedence
+     */
+    public OrderValidationCode checkUnrecorded(OrderContext orderContext) {
+        return check(orderContext, false);
+    }
+
+    private OrderValidationCode check(OrderContext orderContext, boolean record) {
+        boolean timed = record && ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0;
+
+        // A failing guard is reported straight away, no rule before it can have failed
+        for (int i = 0; i < guards; i++) {
+            OrderValidationCode code = run(i, orderContext, record, timed);
+            if (code != OrderValidationCode.NO_ERROR) {
+                return code;
+            }
+        }
+
+        OrderValidationCode reported = OrderValidationCode.NO_ERROR;
+        int reportedRule = rules.length;
+        for (int i : evaluationOrder) {
+            // Only a rule with a higher precedence than the failure found so far can change the reported code
+            if (i > reportedRule) {
+                continue;
+            }
+            OrderValidationCode code = run(i, orderContext, record, timed);
+            if (code != OrderValidationCode.NO_ERROR) {
+                reported = code;
+                reportedRule = i;
+            }
+        }
+
+        if (timed && timedValidations.incrementAndGet() % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return reported;
+    }
+
+    /**
+     * Run one rule and, when asked to, record its outcome
+     */
+    private OrderValidationCode run(int rule, OrderContext orderContext, boolean record, boolean timed) {
+        long startNs = timed ? System.nanoTime() : 0;
+        OrderValidationCode code = rules[rule].check().apply(orderContext);
+        if (record) {
+            stats[rule].record(code != OrderValidationCode.NO_ERROR, timed ? System.nanoTime() - startNs : -1);
+        }
+        return code;
+    }
+
+    /**
+     * Recompute the evaluation order from the rule statistics.
+     * Rules are ranked by their average cost divided by their rejection rate,
+     * which is the expected cost of finding a rejection with the rule.
+     */
+    void reorder() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = guards; i < rules.length; i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.<Integer>comparingDouble(i ->
+                        stats[i].getAverageCostNanos() / Math.max(MIN_REJECTION_RATE, stats[i].getRejectionRate()))
+                .thenComparingInt(i -> i));
+        evaluationOrder = order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Get the names of the rules after the guards, in the order they are run now
+     * @return the rule names
+     */
+    public List<String> getEvaluationOrder() {
+        List<String> names = new ArrayList<>();
+        for (int i : evaluationOrder) {
+            names.add(rules[i].name());
+        }
+        return names;
+    }
+
+    /**
+     * Get the statistics of every rule, in precedence order
+     * @return the rule statistics
+     */
+    public List<RuleStats> getStats() {
+        return List.of(stats);
+    }
+
+    /**
+     * How often a rule has run and rejected an order, and how long it takes
+     */
+    public static final class RuleStats {
+        private final String name;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder timedEvaluations = new LongAdder();
+        private final LongAdder timedNanos = new LongAdder();
+
+        private RuleStats(String name) {
+            this.name = name;
+        }
+
+        private void record(boolean rejected, long nanos) {
+            evaluations.increment();
+            if (rejected) {
+                rejections.increment();
+            }
+            if (nanos >= 0) {
+                timedEvaluations.increment();
+                timedNanos.add(nanos);
+            }
+        }
+
+        /**
+         * Get the name of the rule
+         * @return the rule name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of times the rule has run
+         * @return the number of evaluations
+         */
+        public long getEvaluations() {
+            return evaluations.sum();
+        }
+
+        /**
+         * Get the number of orders the rule has rejected
+         * @return the number of rejections
+         */
+        public long getRejections() {
+            return rejections.sum();
+        }
+
+        /**
+         * Get the share of the runs in which the rule rejected the order
+         * @return the rejection rate between 0 and 1, 0 if the rule has not run
+         */
+        public double getRejectionRate() {
+            long runs = evaluations.sum();
+            return runs == 0 ? 0 : (double) rejections.sum() / runs;
+        }
+
+        /**
+         * Get the average time the rule takes, from the timed runs
+         * @return the average cost in nanoseconds, 0 if no run has been timed
+         */
+        public double getAverageCostNanos() {
+            long runs = timedEvaluations.sum();
+            return runs == 0 ? 0 : (double) timedNanos.sum() / runs;
+        }
+    }
+}
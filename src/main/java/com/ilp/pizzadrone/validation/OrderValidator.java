@@ -12,10 +12,7 @@ import org.springframework.stereotype.Component;
 public class OrderValidator {
     public ResponseEntity<?> validateOrderRequest(Order order) {
         // Check if the order is not null
-        if (order == null || order.getOrderDate() == null ||
-                order.getPriceTotalInPence() <= 0 ||
-                order.getPizzasInOrder() == null ||
-                order.getCreditCardInformation() == null) {
+        if (!isCompleteOrder(order)) {
             return ResponseEntity.badRequest().body("Invalid Order: " +
                     "Order data is invalid");
         }
@@ -23,4 +20,17 @@ public class OrderValidator {
         // return null if validations are pass
         return null;
     }
+
+    /**
+     * Check if an order has the information needed to validate it, without building an error response
+     *
+     * @param order the order
+     * @return true if the order has a date, a positive total, pizzas and credit card information, false otherwise
+     */
+    public boolean isCompleteOrder(Order order) {
+        return order != null && order.getOrderDate() != null &&
+                order.getPriceTotalInPence() > 0 &&
+                order.getPizzasInOrder() != null &&
+                order.getCreditCardInformation() != null;
+    }
 }
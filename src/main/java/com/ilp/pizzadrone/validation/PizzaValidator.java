@@ -3,11 +3,9 @@ package com.ilp.pizzadrone.validation;
 import com.ilp.pizzadrone.constant.OrderValidationCode;
 import com.ilp.pizzadrone.dto.Pizza;
 import com.ilp.pizzadrone.dto.Restaurant;
-import com.ilp.pizzadrone.util.OrderValidationUtils;
+import com.ilp.pizzadrone.model.OrderContext;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-
 import static com.ilp.pizzadrone.constant.SystemConstants.ORDER_CHARGE_IN_PENCE;
 
 /**
@@ -16,48 +14,28 @@ import static com.ilp.pizzadrone.constant.SystemConstants.ORDER_CHARGE_IN_PENCE;
  */
 @Component
 public class PizzaValidator {
-    private final OrderValidationUtils orderValidationUtils;
-
-    /**
-     * Constructor for the pizza validator class
-     */
-    public PizzaValidator(OrderValidationUtils orderValidationUtils) {
-        this.orderValidationUtils = orderValidationUtils;
-    }
-
 
     /**
      * Validates the pizza in the order. Checks if the pizza price and name matches the menu of the restaurant.
-     * @param pizzas the pizzas in the order
+     * @param orderContext the resolved order
      * @return the validation result. If the pizza is valid, return NO_ERROR.
      * If the pizza price is invalid, return PRICE_FOR_PIZZA_INVALID.
      * If the pizza is not defined, return PIZZA_NOT_DEFINED.
      */
-    public OrderValidationCode isValidPizza(Pizza[] pizzas) {
-        // For each piazza in order, find the matching restaurant
-        for (Pizza pizza : pizzas) {
-            Restaurant OrderRestaurant = orderValidationUtils.findOrderRestaurant(pizza.name());
-
-            // If restaurant not found, return false
-            if (OrderRestaurant == null) {
-                return OrderValidationCode.PIZZA_NOT_DEFINED;
-            }
+    public OrderValidationCode isValidPizza(OrderContext orderContext) {
+        Pizza[] pizzas = orderContext.order().getPizzasInOrder();
 
-            // Check if the pizza defined in the restaurant menu
-            boolean isPizzaValid = Arrays.stream(OrderRestaurant.menu())
-                    .anyMatch(menuItem -> menuItem.name().equals(pizza.name()));
+        // For each piazza in order, use the restaurant it was resolved to
+        for (int i = 0; i < pizzas.length; i++) {
+            Restaurant orderRestaurant = orderContext.pizzaRestaurants().get(i);
 
-            // If pizza is not defined, return PIZZA_NOT_DEFINED
-            if (!isPizzaValid) {
+            // If restaurant not found, the pizza is not on any menu
+            if (orderRestaurant == null) {
                 return OrderValidationCode.PIZZA_NOT_DEFINED;
             }
 
             // Check if the pizza price is valid
-            boolean isPizzaPriceValid = Arrays.stream(OrderRestaurant.menu())
-                    .anyMatch(menuItem -> menuItem.priceInPence() == pizza.priceInPence());
-
-            // If pizza price is invalid, return PRICE_FOR_PIZZA_INVALID
-            if (!isPizzaPriceValid) {
+            if (!hasMenuPrice(orderRestaurant, pizzas[i].priceInPence())) {
                 return OrderValidationCode.PRICE_FOR_PIZZA_INVALID;
             }
         }
@@ -69,15 +47,23 @@ public class PizzaValidator {
     /**
      * Checks if the total price of the order is correct.
      *
-     * @param pizzas            the pizzas in the order
-     * @param priceTotalInPence the total price of the order in pence
+     * @param orderContext the resolved order
      * @return True if the total price is correct, false otherwise
      */
-    public boolean isTotalPriceCorrect(Pizza[] pizzas, int priceTotalInPence) {
-        // Calculate the total price of the pizzas
-        int total = Arrays.stream(pizzas).mapToInt(Pizza::priceInPence).sum();
-
+    public boolean isTotalPriceCorrect(OrderContext orderContext) {
         // Compare pence are same added extra 100 pence delivery charge
-        return priceTotalInPence == total + ORDER_CHARGE_IN_PENCE;
+        return orderContext.order().getPriceTotalInPence() == orderContext.pizzaTotalInPence() + ORDER_CHARGE_IN_PENCE;
+    }
+
+    /**
+     * Check if any pizza on the menu of the restaurant has the price
+     */
+    private static boolean hasMenuPrice(Restaurant restaurant, int priceInPence) {
+        for (Pizza menuItem : restaurant.menu()) {
+            if (menuItem.priceInPence() == priceInPence) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,123 @@
+package com.ilp.pizzadrone.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the /calcDeliveryPathAsync endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CalcPathAsyncPostTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
+    @MockBean
+    private RetrieveAPIService retrieveAPIService;
+
+    private final LngLat restaurantLocation = new LngLat(-3.1912869215011597, 55.945535152517735);
+
+    @BeforeEach
+    public void setup() {
+        Restaurant restaurant = new Restaurant("Civerinos Slice", restaurantLocation,
+                DayOfWeek.values(),
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+        NamedRegion centralArea = new NamedRegion("central",
+                List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                        new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        referenceDataLoader.refresh();
+    }
+
+    /**
+     * Test /calcDeliveryPathAsync endpoint with valid order returns the path once the search completes.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidOrder() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathAsync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderNo\": \"26B2C04C\"," +
+                                "\"orderDate\": \"2024-11-23\"," +
+                                "\"orderStatus\": \"VALID\"," +
+                                "\"orderValidationCode\": \"NO_ERROR\", " +
+                                "\"priceTotalInPence\": 2500," +
+                                "\"pizzasInOrder\": [" + "{" +
+                                "\"name\": \"R1: Margarita\"," +
+                                "\"priceInPence\": 1000" +
+                                "}," + "{" +
+                                "\"name\": \"R1: Calzone\"," +
+                                "\"priceInPence\": 1400" +
+                                "}" + "]," +
+                                "\"creditCardInformation\": {" +
+                                "\"creditCardNumber\": \"4172767827650837\"," +
+                                "\"creditCardExpiry\": \"06/25\"," +
+                                "\"cvv\": \"989\"" +
+                                "}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<LngLat> flyPath = List.of(objectMapper.readValue(response, LngLat[].class));
+        assertEquals(restaurantLocation, flyPath.getFirst());
+        assertEquals(APPLETON_LNG, flyPath.getLast().lng(), 1.5e-4);
+        assertEquals(APPLETON_LAT, flyPath.getLast().lat(), 1.5e-4);
+    }
+
+    /**
+     * Test /calcDeliveryPathAsync endpoint with empty body returns 400 Bad Request.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateOrderWithEmptyBody() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathAsync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid Order: Order data is invalid"));
+    }
+}
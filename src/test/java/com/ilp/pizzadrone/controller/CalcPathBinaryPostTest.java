@@ -0,0 +1,146 @@
+package com.ilp.pizzadrone.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import com.ilp.pizzadrone.util.BinaryPathDecoder;
+import com.ilp.pizzadrone.util.BinaryPathEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the binary form of the /calcDeliveryPath endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CalcPathBinaryPostTest {
+
+    private static final String ORDER = "{\"orderNo\": \"26B2C04C\"," +
+            "\"orderDate\": \"2024-11-23\"," +
+            "\"orderStatus\": \"VALID\"," +
+            "\"orderValidationCode\": \"NO_ERROR\", " +
+            "\"priceTotalInPence\": 2500," +
+            "\"pizzasInOrder\": [" + "{" +
+            "\"name\": \"R1: Margarita\"," +
+            "\"priceInPence\": 1000" +
+            "}," + "{" +
+            "\"name\": \"R1: Calzone\"," +
+            "\"priceInPence\": 1400" +
+            "}" + "]," +
+            "\"creditCardInformation\": {" +
+            "\"creditCardNumber\": \"4172767827650837\"," +
+            "\"creditCardExpiry\": \"06/25\"," +
+            "\"cvv\": \"989\"" +
+            "}}";
+
+    // Largest rounding error of a coordinate in the fixed-point binary form
+    private static final double COORDINATE_TOLERANCE = 1 / BinaryPathEncoder.COORDINATE_SCALE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
+    @MockBean
+    private RetrieveAPIService retrieveAPIService;
+
+    @BeforeEach
+    public void setup() {
+        Restaurant restaurant = new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                DayOfWeek.values(),
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+        NamedRegion centralArea = new NamedRegion("central",
+                List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                        new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        referenceDataLoader.refresh();
+    }
+
+    /**
+     * Get the path as JSON, the form the binary path must decode to
+     */
+    private List<LngLat> jsonPath() throws Exception {
+        String response = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        return List.of(objectMapper.readValue(response, LngLat[].class));
+    }
+
+    private static void assertSamePath(List<LngLat> expected, List<LngLat> actual) {
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).lng(), actual.get(i).lng(), COORDINATE_TOLERANCE);
+            assertEquals(expected.get(i).lat(), actual.get(i).lat(), COORDINATE_TOLERANCE);
+        }
+    }
+
+    /**
+     * Test a client accepting the binary path media type gets a binary path which decodes to the JSON path.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testBinaryPathRoundTrips() throws Exception {
+        byte[] encoded = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(BinaryPathEncoder.MEDIA_TYPE)
+                        .content(ORDER))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryPathEncoder.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertSamePath(jsonPath(), BinaryPathDecoder.decode(encoded));
+    }
+
+    /**
+     * Test a length-prefixed binary path decodes to the JSON path and ends after its last point.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testLengthPrefixedBinaryPathRoundTrips() throws Exception {
+        byte[] encoded = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(BinaryPathEncoder.MEDIA_TYPE)
+                        .param("lengthPrefixed", "true")
+                        .content(ORDER))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryPathEncoder.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        assertSamePath(jsonPath(), BinaryPathDecoder.decodeLengthPrefixed(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+}
@@ -0,0 +1,95 @@
+package com.ilp.pizzadrone.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the /distanceTo endpoint while path planning is saturated.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DistanceToSaturatedPostTest {
+
+    private static final String POSITIONS = "{\"position1\": {\"lng\": -3.192473, \"lat\": 55.946233}," +
+            "\"position2\": {\"lng\": -3.192473, \"lat\": 55.942617}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("pathPlanningExecutor")
+    private ExecutorService pathPlanningExecutor;
+
+    /**
+     * Time one /distanceTo request in nanoseconds
+     */
+    private long timeDistanceTo() throws Exception {
+        long start = System.nanoTime();
+        mockMvc.perform(post("/distanceTo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(POSITIONS))
+                .andExpect(status().isOk());
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Test the planning executor leaves a processor free by default,
+     * and /distanceTo stays fast while every planning thread is busy.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testDistanceToStaysFastWhilePlanningIsSaturated() throws Exception {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int planningThreads = ((ThreadPoolExecutor) pathPlanningExecutor).getMaximumPoolSize();
+        assertEquals(Math.max(1, processors - 1), planningThreads);
+
+        // Warm up the endpoint before timing it
+        for (int i = 0; i < 200; i++) {
+            timeDistanceTo();
+        }
+
+        // Keep every planning thread busy on the CPU, as saturated path searches would
+        AtomicBoolean saturated = new AtomicBoolean(true);
+        CountDownLatch busy = new CountDownLatch(planningThreads);
+        for (int i = 0; i < planningThreads; i++) {
+            pathPlanningExecutor.execute(() -> {
+                busy.countDown();
+                while (saturated.get()) {
+                    Thread.onSpinWait();
+                }
+            });
+        }
+
+        long[] latencies = new long[100];
+        try {
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = timeDistanceTo();
+            }
+        } finally {
+            saturated.set(false);
+        }
+
+        Arrays.sort(latencies);
+        long medianMillis = TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2]);
+        assertTrue(medianMillis < 50, "median /distanceTo latency was " + medianMillis + " ms");
+    }
+}
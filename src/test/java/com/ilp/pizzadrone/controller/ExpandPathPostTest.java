@@ -0,0 +1,87 @@
+package com.ilp.pizzadrone.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.CompactPath;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.util.CalcPathUtils;
+import com.ilp.pizzadrone.util.CompactPathUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the /expandDeliveryPath endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExpandPathPostTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CalcPathUtils calcPathUtils;
+
+    @Autowired
+    private CompactPathUtils compactPathUtils;
+
+    private final NamedRegion centralArea = new NamedRegion(
+            "central",
+            List.of(new LngLat(-3.192473, 55.946233),
+                    new LngLat(-3.192473, 55.942617),
+                    new LngLat(-3.184319, 55.942617),
+                    new LngLat(-3.184319, 55.946233),
+                    new LngLat(-3.192473, 55.946233)));
+
+    /**
+     * Test /expandDeliveryPath endpoint returns exactly the path the compact form was built from.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testExpandCompactPath() throws Exception {
+        List<LngLat> flyPath = calcPathUtils.calculatePath(new LngLat(-3.1912869215011597, 55.945535152517735),
+                new LngLat(APPLETON_LNG, APPLETON_LAT), List.<NamedRegion>of(), centralArea);
+        CompactPath compactPath = compactPathUtils.compress(flyPath);
+
+        assertEquals(flyPath.size() - 1, compactPath.moves().length);
+
+        String response = mockMvc.perform(post("/expandDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(compactPath)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(flyPath, List.of(objectMapper.readValue(response, LngLat[].class)));
+    }
+
+    /**
+     * Test /expandDeliveryPath endpoint with an unknown move code returns 400 Bad Request.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testExpandInvalidMove() throws Exception {
+        mockMvc.perform(post("/expandDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"start\": {\"lng\": -3.186874, \"lat\": 55.944494}, \"moves\": \"ABE=\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid Moves: Must be compass direction codes between 0 and 16"));
+    }
+}
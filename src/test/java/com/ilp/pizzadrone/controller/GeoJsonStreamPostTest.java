@@ -0,0 +1,142 @@
+package com.ilp.pizzadrone.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the GeoJSON streamed by the /calcDeliveryPathAsGeoJson endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class GeoJsonStreamPostTest {
+
+    private static final String ORDER = "{\"orderNo\": \"26B2C04C\"," +
+            "\"orderDate\": \"2024-11-23\"," +
+            "\"priceTotalInPence\": 2500," +
+            "\"pizzasInOrder\": [" +
+            "{\"name\": \"R1: Margarita\", \"priceInPence\": 1000}," +
+            "{\"name\": \"R1: Calzone\", \"priceInPence\": 1400}" +
+            "]," +
+            "\"creditCardInformation\": {" +
+            "\"creditCardNumber\": \"4172767827650837\"," +
+            "\"creditCardExpiry\": \"06/25\"," +
+            "\"cvv\": \"989\"" +
+            "}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
+    @MockBean
+    private RetrieveAPIService retrieveAPIService;
+
+    private final LngLat restaurantLocation = new LngLat(-3.1912869215011597, 55.945535152517735);
+
+    @BeforeEach
+    public void setup() {
+        Restaurant restaurant = new Restaurant("Civerinos Slice", restaurantLocation,
+                DayOfWeek.values(),
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+        NamedRegion centralArea = new NamedRegion("central",
+                List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                        new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        referenceDataLoader.refresh();
+    }
+
+    /**
+     * Test the streamed GeoJSON is a feature collection whose line starts at the restaurant.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testGeoJsonIsStreamed() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathAsGeoJson")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode geoJson = objectMapper.readTree(body);
+        assertEquals("FeatureCollection", geoJson.get("type").asText());
+        JsonNode start = geoJson.at("/features/0/geometry/coordinates/0");
+        assertEquals(restaurantLocation.lng(), start.get(0).asDouble(), 1e-12);
+        assertEquals(restaurantLocation.lat(), start.get(1).asDouble(), 1e-12);
+    }
+
+    /**
+     * Test the polyline encoding is streamed as plain text.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testPolylineIsStreamed() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathAsGeoJson")
+                        .param("encoding", "polyline")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String polyline = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andReturn().getResponse().getContentAsString();
+        assertFalse(polyline.isEmpty());
+    }
+
+    /**
+     * Test an unsupported encoding is rejected before anything is streamed.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testUnsupportedEncodingIsRejected() throws Exception {
+        mockMvc.perform(post("/calcDeliveryPathAsGeoJson")
+                        .param("encoding", "wkt")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid Encoding: only polyline is supported"));
+    }
+}
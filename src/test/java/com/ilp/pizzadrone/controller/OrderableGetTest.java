@@ -0,0 +1,96 @@
+package com.ilp.pizzadrone.controller;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the /orderable endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderableGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
+    @MockBean
+    private RetrieveAPIService retrieveAPIService;
+
+    @BeforeEach
+    public void setup() {
+        Restaurant weekdays = new Restaurant("R1", new LngLat(0.0, 0.0),
+                new DayOfWeek[] { DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                        DayOfWeek.THURSDAY, DayOfWeek.FRIDAY },
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+        Restaurant weekend = new Restaurant("R2", new LngLat(0.001, 0.001),
+                new DayOfWeek[] { DayOfWeek.SATURDAY, DayOfWeek.SUNDAY },
+                new Pizza[] { new Pizza("R2: Meat Lover", 1400) });
+
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(weekdays, weekend));
+        referenceDataLoader.refresh();
+    }
+
+    /**
+     * Test only the restaurants open on the date and their pizzas are returned
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testOrderableOnDate() throws Exception {
+        // 2024-11-23 is a Saturday
+        mockMvc.perform(get("/orderable").param("date", "2024-11-23"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dayOfWeek").value("SATURDAY"))
+                .andExpect(jsonPath("$.restaurants.length()").value(1))
+                .andExpect(jsonPath("$.restaurants[0].name").value("R2"))
+                .andExpect(jsonPath("$.pizzas.length()").value(1))
+                .andExpect(jsonPath("$.pizzas[0].name").value("R2: Meat Lover"));
+
+        mockMvc.perform(get("/orderable").param("date", "2024-11-25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dayOfWeek").value("MONDAY"))
+                .andExpect(jsonPath("$.restaurants[0].name").value("R1"))
+                .andExpect(jsonPath("$.pizzas.length()").value(2));
+    }
+
+    /**
+     * Test today is used when no date is given
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testOrderableDefaultsToToday() throws Exception {
+        mockMvc.perform(get("/orderable"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.restaurants.length()").value(1));
+    }
+
+    /**
+     * Test a date which is not an ISO date is rejected
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testInvalidDate() throws Exception {
+        mockMvc.perform(get("/orderable").param("date", "23/11/2024"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,187 @@
+package com.ilp.pizzadrone.controller;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.service.OrderService;
+import com.ilp.pizzadrone.service.ReferenceDataLoader;
+import com.ilp.pizzadrone.service.RetrieveAPIService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the streaming /validateOrders endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ValidateOrdersStreamPostTest {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
+    @MockBean
+    private RetrieveAPIService retrieveAPIService;
+
+    @SpyBean
+    private OrderService orderService;
+
+    @BeforeEach
+    public void setup() {
+        Restaurant restaurant = new Restaurant("R1", new LngLat(0.0, 0.0),
+                DayOfWeek.values(),
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        referenceDataLoader.refresh();
+    }
+
+    private static String order(int priceTotalInPence) {
+        return "{\"orderNo\": \"26B2C04C\"," +
+                "\"orderDate\": \"2024-11-23\"," +
+                "\"priceTotalInPence\": " + priceTotalInPence + "," +
+                "\"pizzasInOrder\": [" +
+                "{\"name\": \"R1: Margarita\", \"priceInPence\": 1000}," +
+                "{\"name\": \"R1: Calzone\", \"priceInPence\": 1400}" +
+                "]," +
+                "\"creditCardInformation\": {" +
+                "\"creditCardNumber\": \"4172767827650837\"," +
+                "\"creditCardExpiry\": \"06/25\"," +
+                "\"cvv\": \"989\"" +
+                "}}";
+    }
+
+    /**
+     * Post an order stream and get the streamed response once it has been written
+     */
+    private MockHttpServletResponse validateOrders(String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType(NDJSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NDJSON))
+                .andReturn().getResponse();
+    }
+
+    /**
+     * Test /validateOrders returns one result line per order line, in the same order.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateOrderStream() throws Exception {
+        String body = order(2500) + "\n" + order(2400) + "\n{}\n" + order(2500) + "\n";
+
+        String response = validateOrders(body).getContentAsString();
+
+        assertEquals(List.of(
+                "{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}",
+                "{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"TOTAL_INCORRECT\"}",
+                "{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"UNDEFINED\"}",
+                "{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}"),
+                response.lines().toList());
+    }
+
+    /**
+     * Test /validateOrders keeps the order of the results for a stream longer than the window.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateLongOrderStream() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            body.append(order(i % 2 == 0 ? 2500 : 2400)).append('\n');
+        }
+
+        List<String> lines = validateOrders(body.toString()).getContentAsString().lines().toList();
+
+        assertEquals(2000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String expected = i % 2 == 0 ? "VALID" : "INVALID";
+            assertTrue(lines.get(i).startsWith("{\"orderStatus\":\"" + expected + "\""), lines.get(i));
+        }
+    }
+
+    /**
+     * Test /validateOrders with a stream which is not JSON ends with an error line.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateInvalidJsonStream() throws Exception {
+        String response = validateOrders("not json\n").getContentAsString();
+
+        assertEquals(List.of("{\"error\":\"Invalid Order: Order stream is not valid JSON\",\"line\":1}"),
+                response.lines().toList());
+    }
+
+    /**
+     * Test /validateOrders keeps the results of the orders before an invalid line, then ends with an error line.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateStreamEndingInInvalidJson() throws Exception {
+        String body = order(2500) + "\n" + order(2400) + "\n{\"orderNo\": \n" + order(2500) + "\n";
+
+        List<String> lines = validateOrders(body).getContentAsString().lines().toList();
+
+        assertEquals(3, lines.size());
+        assertEquals("{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}", lines.get(0));
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"TOTAL_INCORRECT\"}", lines.get(1));
+        assertTrue(lines.get(2).startsWith("{\"error\":\"Invalid Order: Order stream is not valid JSON\""),
+                lines.get(2));
+    }
+
+    /**
+     * Test /validateOrders writes an error line in place of an order whose validation fails and goes on.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testValidateStreamWithFailingOrder() throws Exception {
+        doThrow(new IllegalStateException("Reference data is unavailable"))
+                .when(orderService).validateOrder(argThat((Order order) -> order.getPriceTotalInPence() == 2400));
+        String body = order(2500) + "\n" + order(2400) + "\n" + order(2500) + "\n";
+
+        String response = validateOrders(body).getContentAsString();
+
+        assertEquals(List.of(
+                "{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}",
+                "{\"error\":\"Order could not be validated\",\"line\":2}",
+                "{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}"),
+                response.lines().toList());
+    }
+}
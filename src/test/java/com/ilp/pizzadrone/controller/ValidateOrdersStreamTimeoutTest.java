@@ -0,0 +1,49 @@
+package com.ilp.pizzadrone.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the timeout of the streaming /validateOrders endpoint.
+ */
+@SpringBootTest(properties = {
+        "pizzadrone.orders.stream.timeout=250ms",
+        "spring.mvc.async.request-timeout=30s"
+})
+@AutoConfigureMockMvc
+public class ValidateOrdersStreamTimeoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+     * Test /validateOrders runs under the stream timeout instead of the async request timeout.
+     *
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void testStreamUsesStreamTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        assertEquals(250, asyncContext.getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+}
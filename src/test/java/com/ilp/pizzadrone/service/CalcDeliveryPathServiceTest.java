@@ -0,0 +1,378 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.dto.CompactPath;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.OrderContext;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.util.CalcPathUtils;
+import com.ilp.pizzadrone.util.CompactPathUtils;
+import com.ilp.pizzadrone.util.PreparedRegion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the delivery path route cache
+ */
+public class CalcDeliveryPathServiceTest {
+
+    private final Restaurant restaurant = new Restaurant("Civerinos Slice",
+            new LngLat(-3.1912869215011597, 55.945535152517735),
+            new DayOfWeek[] { DayOfWeek.MONDAY },
+            new Pizza[] { new Pizza("R1: Margarita", 1000) });
+
+    private final NamedRegion centralArea = new NamedRegion("central",
+            List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                    new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+
+    private ReferenceDataLoader referenceDataLoader;
+    private CalcPathUtils calcPathUtils;
+    private CalcDeliveryPathService calcDeliveryPathService;
+
+    @BeforeEach
+    public void setup() {
+        DistanceService distanceService = new DistanceService();
+        referenceDataLoader = mock(ReferenceDataLoader.class);
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(1, List.of(restaurant), List.of(), centralArea));
+        calcPathUtils = spy(new CalcPathUtils(distanceService));
+
+        PortfolioPathService portfolioPathService = mock(PortfolioPathService.class);
+        calcDeliveryPathService = new CalcDeliveryPathService(referenceDataLoader, calcPathUtils,
+                portfolioPathService, new CompactPathUtils(distanceService), Executors.newSingleThreadExecutor(),
+                newAdmissionController());
+    }
+
+    private static PathAdmissionController newAdmissionController() {
+        return new PathAdmissionController(4000, 32, Duration.ofSeconds(2));
+    }
+
+    /**
+     * Test precomputed routes are served without searching again
+     */
+    @Test
+    public void testPrecomputedRouteIsReused() {
+        assertEquals(1, calcDeliveryPathService.precomputeRoutes());
+
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        List<LngLat> first = calcDeliveryPathService.calcDeliveryPath(order);
+        List<LngLat> second = calcDeliveryPathService.calcDeliveryPath(order);
+
+        assertEquals(first, second);
+        assertEquals(restaurant.location(), first.getFirst());
+        verify(calcPathUtils, times(1)).calculatePath(any(LngLat.class), any(LngLat.class), anyList(), any(PreparedRegion.class));
+    }
+
+    /**
+     * Test a cached route expands to exactly the path the search found, and is served compact without expanding it
+     */
+    @Test
+    public void testCachedRouteIsStoredCompact() {
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        OrderContext orderContext = OrderContext.of(order, referenceDataLoader.getSnapshot());
+        List<LngLat> searched = calcDeliveryPathService.calcDeliveryPath(orderContext);
+
+        CompactPath compactPath = calcDeliveryPathService.calcCompactDeliveryPath(orderContext);
+        assertSame(compactPath, calcDeliveryPathService.calcCompactDeliveryPath(orderContext));
+        assertEquals(searched.size() - 1, compactPath.moves().length);
+        assertEquals(searched, calcDeliveryPathService.calcDeliveryPath(orderContext));
+        verify(calcPathUtils, times(1)).calculatePath(any(LngLat.class), any(LngLat.class), anyList(), any(PreparedRegion.class));
+    }
+
+    /**
+     * Test changing the moves of a served compact path leaves the cached route unchanged
+     */
+    @Test
+    public void testCachedCompactRouteCannotBeChanged() {
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        OrderContext orderContext = OrderContext.of(order, referenceDataLoader.getSnapshot());
+        CompactPath compactPath = calcDeliveryPathService.calcCompactDeliveryPath(orderContext);
+        CompactPath copy = new CompactPath(compactPath.start(), compactPath.moves());
+        assertEquals(copy, compactPath);
+        assertEquals(copy.hashCode(), compactPath.hashCode());
+
+        compactPath.moves()[0]++;
+        assertEquals(copy, calcDeliveryPathService.calcCompactDeliveryPath(orderContext));
+    }
+
+    /**
+     * Test an order with no path found gets the empty compact path
+     */
+    @Test
+    public void testNoPathGivesEmptyCompactPath() {
+        doReturn(List.of()).when(calcPathUtils)
+                .calculatePath(any(LngLat.class), any(LngLat.class), anyList(), any(PreparedRegion.class));
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+
+        CompactPath compactPath = calcDeliveryPathService.calcCompactDeliveryPath(
+                OrderContext.of(order, referenceDataLoader.getSnapshot()));
+        assertEquals(CompactPath.EMPTY, compactPath);
+        assertNull(compactPath.start());
+        assertEquals(0, compactPath.moves().length);
+    }
+
+    /**
+     * Test a new snapshot version starts with an empty route cache
+     */
+    @Test
+    public void testNewSnapshotVersionRecalculates() {
+        calcDeliveryPathService.precomputeRoutes();
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(2, List.of(restaurant), List.of(), centralArea));
+        calcDeliveryPathService.precomputeRoutes();
+
+        verify(calcPathUtils, times(2)).calculatePath(any(LngLat.class), any(LngLat.class), anyList(), any(PreparedRegion.class));
+    }
+
+    /**
+     * Test a search is rejected instead of queued when path planning is at capacity
+     */
+    @Test
+    public void testRejectedWhenPlanningAtCapacity() {
+        ExecutorService saturated = mock(ExecutorService.class);
+        when(saturated.submit(any(Runnable.class))).thenThrow(new RejectedExecutionException("full"));
+        CalcDeliveryPathService saturatedService = new CalcDeliveryPathService(referenceDataLoader, calcPathUtils,
+                mock(PortfolioPathService.class), new CompactPathUtils(new DistanceService()), saturated,
+                newAdmissionController());
+
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        assertThrows(PlanningCapacityException.class, () -> saturatedService.calcDeliveryPath(order));
+    }
+
+    /**
+     * Test cancelling the asynchronous path interrupts the running search
+     */
+    @Test
+    public void testCancelInterruptsSearch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CalcPathUtils blockingCalcPathUtils = mock(CalcPathUtils.class);
+        when(blockingCalcPathUtils.calculatePath(any(LngLat.class), any(LngLat.class), anyList(),
+                any(PreparedRegion.class))).thenAnswer(invocation -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw new CancellationException("Path search was cancelled");
+                    }
+                    return List.of();
+                });
+        CalcDeliveryPathService blockingService = new CalcDeliveryPathService(referenceDataLoader,
+                blockingCalcPathUtils, mock(PortfolioPathService.class),
+                new CompactPathUtils(new DistanceService()), Executors.newSingleThreadExecutor(),
+                newAdmissionController());
+
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        CompletableFuture<List<LngLat>> flyPath = blockingService.calcDeliveryPathAsync(order);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        flyPath.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The search should be interrupted");
+    }
+
+    /**
+     * Test identical concurrent requests share a single search
+     */
+    @Test
+    public void testConcurrentRequestsShareOneSearch() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CalcPathUtils blockingCalcPathUtils = mock(CalcPathUtils.class);
+        when(blockingCalcPathUtils.calculatePath(any(LngLat.class), any(LngLat.class), anyList(),
+                any(PreparedRegion.class))).thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(restaurant.location());
+                });
+        CalcDeliveryPathService blockingService = new CalcDeliveryPathService(referenceDataLoader,
+                blockingCalcPathUtils, mock(PortfolioPathService.class),
+                new CompactPathUtils(new DistanceService()), Executors.newFixedThreadPool(4),
+                newAdmissionController());
+
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        List<CompletableFuture<List<LngLat>>> flyPaths = new ArrayList<>();
+        flyPaths.add(blockingService.calcDeliveryPathAsync(order));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 9; i++) {
+            flyPaths.add(blockingService.calcDeliveryPathAsync(order));
+        }
+        release.countDown();
+
+        for (CompletableFuture<List<LngLat>> flyPath : flyPaths) {
+            assertEquals(List.of(restaurant.location()), flyPath.get(5, TimeUnit.SECONDS));
+        }
+        verify(blockingCalcPathUtils, times(1)).calculatePath(any(LngLat.class), any(LngLat.class), anyList(),
+                any(PreparedRegion.class));
+    }
+
+    /**
+     * Test one request cancelling does not cancel the search shared with other requests
+     */
+    @Test
+    public void testCancelDoesNotAffectOtherWaiters() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CalcPathUtils blockingCalcPathUtils = mock(CalcPathUtils.class);
+        when(blockingCalcPathUtils.calculatePath(any(LngLat.class), any(LngLat.class), anyList(),
+                any(PreparedRegion.class))).thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of(restaurant.location());
+                });
+        CalcDeliveryPathService blockingService = new CalcDeliveryPathService(referenceDataLoader,
+                blockingCalcPathUtils, mock(PortfolioPathService.class),
+                new CompactPathUtils(new DistanceService()), Executors.newSingleThreadExecutor(),
+                newAdmissionController());
+
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        CompletableFuture<List<LngLat>> cancelled = blockingService.calcDeliveryPathAsync(order);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<LngLat>> waiting = blockingService.calcDeliveryPathAsync(order);
+
+        cancelled.cancel(true);
+        release.countDown();
+
+        assertEquals(List.of(restaurant.location()), waiting.get(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+    }
+
+    /**
+     * Test a request joining the search while its owner waits for admission
+     * cannot cancel the search by cancelling its own request
+     */
+    @Test
+    public void testJoinerCancellingDuringAdmissionKeepsOwnerSearch() throws Exception {
+        PathAdmissionController admission = new PathAdmissionController(100, 32, Duration.ofSeconds(5));
+        CalcDeliveryPathService admittedService = new CalcDeliveryPathService(referenceDataLoader, calcPathUtils,
+                mock(PortfolioPathService.class), new CompactPathUtils(new DistanceService()),
+                Executors.newSingleThreadExecutor(), admission);
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+
+        // Use up the whole budget, so the owner has to wait for admission
+        admission.acquire(100);
+        CompletableFuture<List<LngLat>> owner = admittedService.calcDeliveryPathAsync(order);
+        assertEquals(1, admission.getQueued());
+
+        CompletableFuture<List<LngLat>> joiner = admittedService.calcDeliveryPathAsync(order);
+        joiner.cancel(true);
+        admission.release(100);
+
+        assertEquals(restaurant.location(), owner.get(5, TimeUnit.SECONDS).getFirst());
+        assertTrue(joiner.isCancelled());
+        verify(calcPathUtils, times(1)).calculatePath(any(LngLat.class), any(LngLat.class), anyList(),
+                any(PreparedRegion.class));
+    }
+
+    /**
+     * Test a request joining a search just as its last waiter cancels never gets a cancellation it did not ask for,
+     * and is told to start its own search instead
+     */
+    @Test
+    public void testJoinRacingLastCancelIsNeverCancelled() {
+        List<CompletableFuture<List<LngLat>>> joined = new ArrayList<>();
+        AtomicInteger waiters = new AtomicInteger(1);
+        // Join at the worst moment: after the last waiter has left, just before the search is cancelled
+        CompletableFuture<List<LngLat>> route = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                joined.add(new CalcDeliveryPathService.InFlightRoute(this, waiters).join());
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        CalcDeliveryPathService.InFlightRoute inFlight = new CalcDeliveryPathService.InFlightRoute(route, waiters);
+
+        inFlight.owner().cancel(true);
+
+        assertTrue(route.isCancelled());
+        assertEquals(1, joined.size());
+        assertNull(joined.getFirst());
+        assertNull(inFlight.join());
+    }
+
+    /**
+     * Test a search waiting for admission does not hold the calling thread,
+     * and leaves the admission queue once every request for it is cancelled
+     */
+    @Test
+    public void testQueuedSearchDoesNotBlockAndLeavesQueueOnCancel() {
+        PathAdmissionController admission = new PathAdmissionController(100, 32, Duration.ofSeconds(5));
+        CalcDeliveryPathService admittedService = new CalcDeliveryPathService(referenceDataLoader, calcPathUtils,
+                mock(PortfolioPathService.class), new CompactPathUtils(new DistanceService()),
+                Executors.newSingleThreadExecutor(), admission);
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+
+        admission.acquire(100);
+        CompletableFuture<List<LngLat>> flyPath = admittedService.calcDeliveryPathAsync(order);
+        assertFalse(flyPath.isDone());
+        assertEquals(1, admission.getQueued());
+
+        flyPath.cancel(true);
+        assertEquals(0, admission.getQueued());
+        admission.release(100);
+        assertEquals(0, admission.getCostInUse());
+        verifyNoInteractions(calcPathUtils);
+    }
+
+    /**
+     * Test a cold search is rejected when admission control has no budget, while cached routes are still served
+     */
+    @Test
+    public void testAdmissionRejectsColdSearchButServesCachedRoute() {
+        PathAdmissionController admission = new PathAdmissionController(100, 0, Duration.ZERO);
+        CalcDeliveryPathService admittedService = new CalcDeliveryPathService(referenceDataLoader, calcPathUtils,
+                mock(PortfolioPathService.class), new CompactPathUtils(new DistanceService()),
+                Executors.newSingleThreadExecutor(), admission);
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        List<LngLat> flyPath = admittedService.calcDeliveryPath(order);
+
+        // Use up the whole budget, as if other searches were running
+        admission.acquire(100);
+        assertEquals(flyPath, admittedService.calcDeliveryPath(order));
+
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(2, List.of(restaurant), List.of(), centralArea));
+        assertThrows(PlanningCapacityException.class, () -> admittedService.calcDeliveryPath(order));
+        assertEquals(1, admission.getRejected());
+    }
+
+    /**
+     * Test a resolved order is planned with the snapshot it was resolved against, without resolving it again
+     */
+    @Test
+    public void testResolvedOrderKeepsItsSnapshot() {
+        ReferenceSnapshot resolvedSnapshot = referenceDataLoader.getSnapshot();
+        Order order = new Order("1", LocalDate.now(), 1100, new Pizza[] { restaurant.menu()[0] }, null);
+        OrderContext orderContext = OrderContext.of(order, resolvedSnapshot);
+        assertSame(restaurant, orderContext.restaurant());
+
+        // A newer snapshot is published while the order is being processed
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(2, List.of(), List.of(), centralArea));
+        List<LngLat> flyPath = calcDeliveryPathService.calcDeliveryPath(orderContext);
+
+        assertEquals(restaurant.location(), flyPath.getFirst());
+        verify(calcPathUtils).calculatePath(any(LngLat.class), any(LngLat.class),
+                same(resolvedSnapshot.preparedNoFlyZones()), same(resolvedSnapshot.preparedCentralArea()));
+    }
+}
@@ -1,18 +1,24 @@
 package com.ilp.pizzadrone.service;
 
+import com.ilp.pizzadrone.constant.PathSearchStrategy;
 import com.ilp.pizzadrone.dto.*;
 import com.ilp.pizzadrone.model.IsInRegionRequest;
 import com.ilp.pizzadrone.model.LngLatPairRequest;
 import com.ilp.pizzadrone.util.CalcPathUtils;
+import com.ilp.pizzadrone.util.PreparedRegion;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.ilp.pizzadrone.constant.SystemConstants.*;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test class for Calculate Path service
@@ -27,6 +33,9 @@ public class CalcPathServiceTest {
         @Autowired
         private DistanceService distanceService;
 
+        @Autowired
+        private PortfolioPathService portfolioPathService;
+
         // Mock test data
         private final LngLat restaurantLocation = new LngLat(-3.20254147052765, 55.9432847375794);
 
@@ -82,4 +91,121 @@ public class CalcPathServiceTest {
                 // Check if the fly path has more than the maximum number of moves
                 assertTrue(flyPath.size() <= DRONE_MAX_MOVES, "Path exceeds the maximum allowed moves");
         }
+
+        /**
+         * Test case for the central area constraint of the calculated path
+         * It checks that once the fly path has entered the central area it never leaves it again
+         */
+        @Test
+        @org.junit.jupiter.api.Timeout(60)
+        public void testCalculatePathStaysInCentralArea() {
+                List<LngLat> flyPath = calcPathUtils.calculatePath(
+                                restaurantLocation, appletonTowerLocation, noFlyZones, centralArea);
+
+                boolean enteredCentralArea = false;
+                for (LngLat point : flyPath) {
+                        boolean isInsideCentralArea = distanceService
+                                        .isInRegionChecker(new IsInRegionRequest(point, centralArea));
+                        if (enteredCentralArea) {
+                                assertTrue(isInsideCentralArea, "Path should not leave the central area");
+                        }
+                        enteredCentralArea |= isInsideCentralArea;
+                }
+
+                assertTrue(enteredCentralArea, "Path should end inside the central area");
+        }
+
+        /**
+         * Test case for a central area the straight line to the goal enters and leaves again
+         * The area is a U open at the bottom with the goal in its right arm: the shortest legal path
+         * flies under the left arm instead of through it, so it must be found even though branches
+         * entering the left arm are explored first
+         */
+        @Test
+        @org.junit.jupiter.api.Timeout(60)
+        public void testCalculatePathAroundCentralAreaArm() {
+                double lng = -3.19;
+                double lat = 55.94;
+                NamedRegion uShapedArea = new NamedRegion(
+                                "central",
+                                List.of(new LngLat(lng + 0.0006, lat - 0.0010),
+                                                new LngLat(lng + 0.0012, lat - 0.0010),
+                                                new LngLat(lng + 0.0012, lat + 0.0020),
+                                                new LngLat(lng + 0.0024, lat + 0.0020),
+                                                new LngLat(lng + 0.0024, lat - 0.0010),
+                                                new LngLat(lng + 0.0030, lat - 0.0010),
+                                                new LngLat(lng + 0.0030, lat + 0.0026),
+                                                new LngLat(lng + 0.0006, lat + 0.0026),
+                                                new LngLat(lng + 0.0006, lat - 0.0010)));
+                LngLat start = new LngLat(lng, lat);
+                LngLat goal = new LngLat(lng + 0.0027, lat);
+
+                List<LngLat> flyPath = calcPathUtils.calculatePath(start, goal, List.of(), uShapedArea);
+
+                assertFalse(flyPath.isEmpty(), "A path around the left arm should be found");
+                assertEquals(start, flyPath.getFirst());
+                assertTrue(distanceService.isCloseChecker(new LngLatPairRequest(flyPath.getLast(), goal)),
+                                "Last position of the path should be close to the goal");
+
+                boolean enteredCentralArea = false;
+                for (LngLat point : flyPath) {
+                        boolean isInsideCentralArea = distanceService
+                                        .isInRegionChecker(new IsInRegionRequest(point, uShapedArea));
+                        if (enteredCentralArea) {
+                                assertTrue(isInsideCentralArea, "Path should not leave the central area");
+                        }
+                        enteredCentralArea |= isInsideCentralArea;
+                }
+
+                // Staying inside from the left arm means flying over the top of the U, about 40 moves
+                assertTrue(flyPath.size() <= 30, "Path should go under the left arm, took " + flyPath.size());
+        }
+
+        /**
+         * Test case for the portfolio path planner racing several search strategies
+         * It checks if the winning path starts at the restaurant, ends close to Appleton Tower
+         * and does not enter the no-fly zone
+         */
+        @Test
+        @org.junit.jupiter.api.Timeout(60)
+        public void testPortfolioCalculatePath() {
+                List<LngLat> flyPath = portfolioPathService.calculatePath(
+                                restaurantLocation, appletonTowerLocation,
+                                List.of(new PreparedRegion(noFlyZone)), new PreparedRegion(centralArea));
+
+                assertFalse(flyPath.isEmpty(), "Portfolio should find a path");
+                assertEquals(restaurantLocation, flyPath.getFirst());
+                assertTrue(distanceService
+                                .isCloseChecker(new LngLatPairRequest(flyPath.getLast(), appletonTowerLocation)),
+                                "Last position of the path should be close to Appleton Tower");
+
+                for (LngLat point : flyPath) {
+                        assertFalse(distanceService.isInRegionChecker(new IsInRegionRequest(point, noFlyZone)),
+                                        "Path should not enter the no-fly zone");
+                }
+        }
+
+        /**
+         * Test case for the portfolio path planner when the search executor is at capacity
+         * It checks that the strategies are not run in turn on the calling thread,
+         * and plain A* runs alone instead
+         */
+        @Test
+        public void testPortfolioFallsBackToAStarWhenSaturated() {
+                ExecutorService saturated = mock(ExecutorService.class);
+                doThrow(new RejectedExecutionException("full")).when(saturated).execute(any(Runnable.class));
+                CalcPathUtils spyCalcPathUtils = spy(calcPathUtils);
+                PortfolioPathService saturatedPortfolio = new PortfolioPathService(spyCalcPathUtils, saturated,
+                                true, 1.5, List.of(PathSearchStrategy.values()));
+
+                List<LngLat> flyPath = saturatedPortfolio.calculatePath(
+                                restaurantLocation, appletonTowerLocation,
+                                List.of(new PreparedRegion(noFlyZone)), new PreparedRegion(centralArea));
+
+                assertEquals(restaurantLocation, flyPath.getFirst());
+                verify(spyCalcPathUtils, times(1)).calculatePath(any(LngLat.class), any(LngLat.class),
+                                anyList(), any(PreparedRegion.class), anyDouble());
+                verify(spyCalcPathUtils).calculatePath(any(LngLat.class), any(LngLat.class),
+                                anyList(), any(PreparedRegion.class), eq(PathSearchStrategy.A_STAR.getHeuristicWeight()));
+        }
 }
@@ -4,16 +4,21 @@ import com.ilp.pizzadrone.dto.LngLat;
 import com.ilp.pizzadrone.dto.NamedRegion;
 import com.ilp.pizzadrone.dto.Restaurant;
 import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
 import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +32,9 @@ public class GeoJsonServiceTest {
     @Autowired
     private GeoJsonService geoJsonService;
 
+    @Autowired
+    private ReferenceDataLoader referenceDataLoader;
+
     @MockBean
     private RetrieveAPIService retrieveAPIService;
 
@@ -80,4 +88,46 @@ public class GeoJsonServiceTest {
                 "Flight path missing");
 
     }
+
+    /**
+     * Test the streamed GeoJSON holds every coordinate of the flight path
+     */
+    @Test
+    public void testWriteGeoJson() throws Exception {
+        List<LngLat> flightPath = List.of(restaurantLocation, appletonTowerLocation, appletonTowerLocation);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        geoJsonService.writeGeoJson(flightPath, out);
+        String geoJson = out.toString(StandardCharsets.UTF_8);
+
+        FeatureCollection featureCollection = FeatureCollection.fromJson(geoJson);
+        assert featureCollection.features() != null;
+        LineString lineString = (LineString) featureCollection.features().getFirst().geometry();
+        assert lineString != null;
+
+        List<Point> points = lineString.coordinates();
+        assertEquals(flightPath.size(), points.size());
+        assertEquals(restaurantLocation.lng(), points.getFirst().longitude(), 1e-7);
+        assertEquals(restaurantLocation.lat(), points.getFirst().latitude(), 1e-7);
+    }
+
+    /**
+     * Test the region layers are added after the flight path when requested
+     */
+    @Test
+    public void testWriteGeoJsonWithZones() throws Exception {
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        when(retrieveAPIService.fetchNoFlyZones()).thenReturn(List.of(noFlyZone));
+        referenceDataLoader.refresh();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        geoJsonService.writeGeoJson(List.of(restaurantLocation, appletonTowerLocation), true, out);
+
+        FeatureCollection featureCollection = FeatureCollection.fromJson(out.toString(StandardCharsets.UTF_8));
+        assert featureCollection.features() != null;
+        assertEquals(3, featureCollection.features().size());
+        assertEquals("George Square Area", featureCollection.features().get(1).getStringProperty("name"));
+        assertEquals("Central Area", featureCollection.features().get(2).getStringProperty("name"));
+    }
 }
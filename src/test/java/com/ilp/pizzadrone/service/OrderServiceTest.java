@@ -0,0 +1,140 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.constant.OrderStatus;
+import com.ilp.pizzadrone.dto.CreditCardInformation;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.OrderFingerprint;
+import com.ilp.pizzadrone.model.OrderValidation;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import com.ilp.pizzadrone.validation.CreditCardValidator;
+import com.ilp.pizzadrone.validation.PizzaValidator;
+import com.ilp.pizzadrone.validation.RestaurantValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the order validation result cache
+ */
+public class OrderServiceTest {
+
+    private final Restaurant restaurant = new Restaurant("R1", new LngLat(0.0, 0.0),
+            DayOfWeek.values(),
+            new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+
+    private ReferenceDataLoader referenceDataLoader;
+    private PizzaValidator pizzaValidator;
+
+    @BeforeEach
+    public void setup() {
+        referenceDataLoader = mock(ReferenceDataLoader.class);
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(1, List.of(restaurant), List.of(), null));
+        pizzaValidator = spy(new PizzaValidator());
+    }
+
+    private OrderService newOrderService(int validationCacheSize) {
+        return new OrderService(pizzaValidator, new CreditCardValidator(), new RestaurantValidator(),
+                referenceDataLoader, validationCacheSize);
+    }
+
+    private static Order order(String orderNo, String cvv) {
+        return new Order(orderNo, LocalDate.of(2024, 11, 23), 2500,
+                new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) },
+                new CreditCardInformation("4172767827650837", "06/25", cvv));
+    }
+
+    /**
+     * Test a resubmitted order is answered from the cache without running the checks again
+     */
+    @Test
+    public void testDuplicateOrderIsAnsweredFromCache() {
+        OrderService orderService = newOrderService(100);
+
+        OrderValidation first = orderService.validateOrder(order("1", "989"));
+        OrderValidation second = orderService.validateOrder(order("1", "989"));
+
+        assertEquals(OrderStatus.VALID, first.orderStatus());
+        assertSame(first, second);
+        verify(pizzaValidator, times(1)).isValidPizza(any());
+    }
+
+    /**
+     * Test an order differing in a validated field is checked again
+     */
+    @Test
+    public void testDifferentOrderIsChecked() {
+        OrderService orderService = newOrderService(100);
+
+        assertEquals(OrderStatus.VALID, orderService.validateOrder(order("1", "989")).orderStatus());
+        assertEquals(OrderStatus.INVALID, orderService.validateOrder(order("1", "98")).orderStatus());
+        verify(pizzaValidator, times(2)).isValidPizza(any());
+    }
+
+    /**
+     * Test a new snapshot version starts with an empty cache
+     */
+    @Test
+    public void testNewSnapshotVersionIsChecked() {
+        OrderService orderService = newOrderService(100);
+        orderService.validateOrder(order("1", "989"));
+
+        when(referenceDataLoader.getSnapshot())
+                .thenReturn(ReferenceSnapshot.of(2, List.of(restaurant), List.of(), null));
+        orderService.validateOrder(order("1", "989"));
+
+        verify(pizzaValidator, times(2)).isValidPizza(any());
+    }
+
+    /**
+     * Test the cache keeps at most the configured number of results, and a size of 0 disables it
+     */
+    @Test
+    public void testCacheIsBounded() {
+        OrderService orderService = newOrderService(1);
+        orderService.validateOrder(order("1", "989"));
+        orderService.validateOrder(order("1", "123"));
+        orderService.validateOrder(order("1", "989"));
+        verify(pizzaValidator, times(3)).isValidPizza(any());
+
+        OrderService uncached = newOrderService(0);
+        uncached.validateOrder(order("1", "989"));
+        uncached.validateOrder(order("1", "989"));
+        verify(pizzaValidator, times(5)).isValidPizza(any());
+    }
+
+    /**
+     * Test the fingerprint depends on the validated fields only
+     */
+    @Test
+    public void testFingerprint() {
+        assertEquals(OrderFingerprint.of(order("1", "989")), OrderFingerprint.of(order("2", "989")));
+        assertEquals(OrderFingerprint.of(order("1", "989")).hashCode(),
+                OrderFingerprint.of(order("1", "989")).hashCode());
+        assertNotEquals(OrderFingerprint.of(order("1", "989")), OrderFingerprint.of(order("1", "988")));
+        assertNotEquals(OrderFingerprint.of(order("1", "989")), OrderFingerprint.of(order("1", null)));
+    }
+
+    /**
+     * Test platform and virtual threads compute the same fingerprint, as they share the process key
+     */
+    @Test
+    public void testFingerprintIsSameOnEveryThread() throws Exception {
+        OrderFingerprint platform = OrderFingerprint.of(order("1", "989"));
+        OrderFingerprint[] virtual = new OrderFingerprint[1];
+        Thread thread = Thread.ofVirtual().start(() -> virtual[0] = OrderFingerprint.of(order("1", "989")));
+        thread.join();
+
+        assertEquals(platform, virtual[0]);
+    }
+}
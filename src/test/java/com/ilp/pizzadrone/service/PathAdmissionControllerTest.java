@@ -0,0 +1,137 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.util.PreparedRegion;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the admission control of delivery path searches
+ */
+public class PathAdmissionControllerTest {
+
+    private final LngLat appletonTower = new LngLat(-3.186874, 55.944494);
+    private final LngLat restaurant = new LngLat(-3.20254147052765, 55.9432847375794);
+
+    private final PreparedRegion georgeSquare = new PreparedRegion(new NamedRegion("George Square Area",
+            List.of(new LngLat(-3.190578818321228, 55.94402412577528),
+                    new LngLat(-3.1899887323379517, 55.94284650540911),
+                    new LngLat(-3.187097311019897, 55.94328811724263),
+                    new LngLat(-3.187682032585144, 55.944477740393744),
+                    new LngLat(-3.190578818321228, 55.94402412577528))));
+
+    /**
+     * Test the cost grows with the distance and with every no-fly zone on the straight line
+     */
+    @Test
+    public void testEstimateCost() {
+        PathAdmissionController admission = new PathAdmissionController(100_000, 0, Duration.ZERO);
+        int clear = admission.estimateCost(restaurant, appletonTower, List.of());
+        int crossing = admission.estimateCost(restaurant, appletonTower, List.of(georgeSquare));
+        LngLat nearby = new LngLat(-3.1869, 55.9446);
+
+        assertTrue(clear > admission.estimateCost(nearby, appletonTower, List.of()));
+        assertEquals(2 * clear, crossing);
+    }
+
+    /**
+     * Test a search costlier than the budget is capped, so it can still run on its own
+     */
+    @Test
+    public void testCostIsCappedAtBudget() {
+        PathAdmissionController admission = new PathAdmissionController(10, 0, Duration.ZERO);
+        assertEquals(10, admission.estimateCost(restaurant, appletonTower, List.of(georgeSquare)));
+    }
+
+    /**
+     * Test searches are rejected straight away when the queue is full
+     */
+    @Test
+    public void testRejectsWhenQueueIsFull() {
+        PathAdmissionController admission = new PathAdmissionController(100, 0, Duration.ofSeconds(10));
+        admission.acquire(80);
+
+        PlanningCapacityException e = assertThrows(PlanningCapacityException.class, () -> admission.acquire(30));
+        assertEquals(Duration.ofSeconds(10), e.getRetryAfter());
+        assertEquals(1, admission.getRejected());
+        assertEquals(80, admission.getCostInUse());
+    }
+
+    /**
+     * Test a queued search is rejected when no budget becomes free in time
+     */
+    @Test
+    public void testRejectsAfterMaxWait() {
+        PathAdmissionController admission = new PathAdmissionController(100, 1, Duration.ofMillis(50));
+        admission.acquire(100);
+
+        assertThrows(PlanningCapacityException.class, () -> admission.acquire(1));
+        assertEquals(0, admission.getQueued());
+    }
+
+    /**
+     * Test a queued search is admitted once a running search releases its budget
+     */
+    @Test
+    public void testQueuedSearchIsAdmittedOnRelease() throws Exception {
+        PathAdmissionController admission = new PathAdmissionController(100, 1, Duration.ofSeconds(5));
+        admission.acquire(100);
+
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> admission.acquire(60));
+        while (admission.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        admission.release(100);
+
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(60, admission.getCostInUse());
+    }
+
+    /**
+     * Test admitting a search never blocks, and waiting searches are admitted in arrival order
+     */
+    @Test
+    public void testAdmitQueuesWithoutBlocking() {
+        PathAdmissionController admission = new PathAdmissionController(100, 2, Duration.ofSeconds(5));
+        admission.acquire(100);
+
+        CompletableFuture<Void> costly = admission.admit(80);
+        CompletableFuture<Void> cheap = admission.admit(10);
+        assertFalse(costly.isDone());
+        assertFalse(cheap.isDone());
+        assertEquals(2, admission.getQueued());
+
+        // The cheap search fits after a partial release but stays behind the costly one
+        admission.release(30);
+        assertFalse(cheap.isDone());
+
+        admission.release(70);
+        assertTrue(costly.isDone());
+        assertTrue(cheap.isDone());
+        assertEquals(90, admission.getCostInUse());
+    }
+
+    /**
+     * Test a waiting search which gives up leaves the queue, letting the searches behind it in
+     */
+    @Test
+    public void testCancelledWaiterLeavesQueue() {
+        PathAdmissionController admission = new PathAdmissionController(100, 2, Duration.ofSeconds(5));
+        admission.acquire(50);
+
+        CompletableFuture<Void> costly = admission.admit(80);
+        CompletableFuture<Void> cheap = admission.admit(10);
+        costly.cancel(false);
+
+        assertTrue(cheap.isDone());
+        assertEquals(0, admission.getQueued());
+        assertEquals(60, admission.getCostInUse());
+    }
+}
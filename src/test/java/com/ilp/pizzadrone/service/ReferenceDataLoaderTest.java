@@ -0,0 +1,266 @@
+package com.ilp.pizzadrone.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.ReferenceData;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.stubbing.Answer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for loading the reference data snapshot
+ */
+public class ReferenceDataLoaderTest {
+
+    private final Restaurant restaurant = new Restaurant("R1", new LngLat(-3.1912869215011597, 55.945535152517735),
+            new DayOfWeek[] { DayOfWeek.MONDAY },
+            new Pizza[] { new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400) });
+
+    private final NamedRegion centralArea = new NamedRegion("central",
+            List.of(new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                    new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+
+    /**
+     * Create a loader reading from the REST API without a snapshot file
+     */
+    private static ReferenceDataLoader newLoader(RetrieveAPIService retrieveAPIService) {
+        return new ReferenceDataLoader(new HttpReferenceDataSource(retrieveAPIService), new ReferenceSnapshotFile(null));
+    }
+
+    /**
+     * Delay an answer to simulate a slow upstream call
+     */
+    private static <T> Answer<T> delayed(T value) {
+        return invocation -> {
+            Thread.sleep(300);
+            return value;
+        };
+    }
+
+    /**
+     * Test the three datasets are fetched concurrently and indexed in the snapshot
+     */
+    @Test
+    public void testLoadFetchesConcurrently() {
+        RetrieveAPIService retrieveAPIService = mock(RetrieveAPIService.class);
+        when(retrieveAPIService.fetchRestaurants()).thenAnswer(delayed(List.of(restaurant)));
+        when(retrieveAPIService.fetchNoFlyZones()).thenAnswer(delayed(List.<NamedRegion>of()));
+        when(retrieveAPIService.fetchCentralArea()).thenAnswer(delayed(centralArea));
+        ReferenceDataLoader loader = newLoader(retrieveAPIService);
+
+        long startNs = System.nanoTime();
+        assertTrue(loader.refresh());
+        long tookMs = (System.nanoTime() - startNs) / 1_000_000;
+
+        // Three sequential calls would take at least 900 ms
+        assertTrue(tookMs < 800, "Fetches should run in parallel, took " + tookMs + " ms");
+
+        ReferenceSnapshot snapshot = loader.getSnapshot();
+        assertSame(restaurant, snapshot.findRestaurant("R1: Calzone"));
+        assertNull(snapshot.findRestaurant("R2: Meat Lover"));
+        assertNotNull(snapshot.preparedCentralArea());
+    }
+
+    /**
+     * Test a failed refresh keeps the last snapshot
+     */
+    @Test
+    public void testFailedRefreshKeepsSnapshot() {
+        RetrieveAPIService retrieveAPIService = mock(RetrieveAPIService.class);
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant))
+                .thenThrow(new IllegalStateException("upstream down"));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        ReferenceDataLoader loader = newLoader(retrieveAPIService);
+
+        assertTrue(loader.refresh());
+        ReferenceSnapshot first = loader.getSnapshot();
+
+        assertFalse(loader.refresh());
+        assertSame(first, loader.getSnapshot());
+    }
+
+    /**
+     * Test every published snapshot has a higher version than the one it replaces
+     */
+    @Test
+    public void testVersionIncreases() {
+        RetrieveAPIService retrieveAPIService = mock(RetrieveAPIService.class);
+        Restaurant reopened = new Restaurant(restaurant.name(), restaurant.location(),
+                DayOfWeek.values(), restaurant.menu());
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant), List.of(reopened));
+        ReferenceDataLoader loader = newLoader(retrieveAPIService);
+
+        ReferenceSnapshot first = loader.getSnapshot();
+        assertTrue(loader.refresh());
+        ReferenceSnapshot second = loader.getSnapshot();
+
+        assertTrue(second.version() > first.version());
+        assertNull(second.preparedCentralArea());
+    }
+
+    /**
+     * Test the snapshot is kept when every fetch returns the data already in use
+     */
+    @Test
+    public void testUnchangedDataKeepsSnapshot() {
+        RetrieveAPIService retrieveAPIService = mock(RetrieveAPIService.class);
+        when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(retrieveAPIService.fetchNoFlyZones()).thenReturn(List.of());
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        ReferenceDataLoader loader = newLoader(retrieveAPIService);
+
+        assertTrue(loader.refresh());
+        ReferenceSnapshot first = loader.getSnapshot();
+
+        assertFalse(loader.refresh());
+        assertSame(first, loader.getSnapshot());
+    }
+
+    /**
+     * Test a source returning new but equal data each time keeps the snapshot
+     */
+    @Test
+    public void testEqualDataKeepsSnapshot() {
+        RetrieveAPIService retrieveAPIService = mock(RetrieveAPIService.class);
+        when(retrieveAPIService.fetchRestaurants()).thenAnswer(invocation -> List.of(new Restaurant(restaurant.name(),
+                restaurant.location(), restaurant.openingDays().clone(), restaurant.menu().clone())));
+        when(retrieveAPIService.fetchNoFlyZones()).thenAnswer(invocation -> List.of(
+                new NamedRegion(centralArea.name(), List.copyOf(centralArea.vertices()))));
+        when(retrieveAPIService.fetchCentralArea()).thenReturn(centralArea);
+        ReferenceDataLoader loader = newLoader(retrieveAPIService);
+
+        assertTrue(loader.refresh());
+        ReferenceSnapshot first = loader.getSnapshot();
+
+        assertFalse(loader.refresh());
+        assertSame(first, loader.getSnapshot());
+    }
+
+    /**
+     * Test the directory source parses the files again only once one of them changes
+     */
+    @Test
+    public void testDirectorySourceReusesUnchangedFiles(@TempDir Path directory) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.writeValue(directory.resolve("restaurants.json").toFile(), List.of(restaurant));
+        objectMapper.writeValue(directory.resolve("noFlyZones.json").toFile(), List.of(centralArea));
+        JsonDirectoryReferenceDataSource source = new JsonDirectoryReferenceDataSource(directory, objectMapper);
+
+        ReferenceData first = source.fetch();
+        assertSame(first, source.fetch());
+
+        objectMapper.writeValue(directory.resolve("noFlyZones.json").toFile(), List.of());
+        Files.setLastModifiedTime(directory.resolve("noFlyZones.json"),
+                FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        ReferenceData changed = source.fetch();
+        assertNotSame(first, changed);
+        assertEquals(List.of(), changed.noFlyZones());
+    }
+
+    /**
+     * Test the binary snapshot file reads back the data written to it
+     */
+    @Test
+    public void testSnapshotFileRoundTrip(@TempDir Path directory) {
+        ReferenceSnapshotFile snapshotFile = new ReferenceSnapshotFile(directory.resolve("reference.bin"));
+        snapshotFile.write(new ReferenceData(List.of(restaurant), List.of(centralArea), null));
+
+        ReferenceData read = snapshotFile.fetch();
+
+        assertEquals(restaurant.name(), read.restaurants().getFirst().name());
+        assertEquals(restaurant.location(), read.restaurants().getFirst().location());
+        assertArrayEquals(restaurant.openingDays(), read.restaurants().getFirst().openingDays());
+        assertArrayEquals(restaurant.menu(), read.restaurants().getFirst().menu());
+        assertEquals(List.of(centralArea), read.noFlyZones());
+        assertNull(read.centralArea());
+
+        // An unchanged file is not decoded again
+        assertSame(read, snapshotFile.fetch());
+    }
+
+    /**
+     * Test a snapshot file with a count larger than the file is rejected as corrupt before allocating
+     */
+    @Test
+    public void testSnapshotFileWithOversizedCountIsCorrupt(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("reference.bin");
+        writeSnapshotHeader(file, out -> out.writeInt(Integer.MAX_VALUE));
+
+        assertThrows(IllegalStateException.class, () -> new ReferenceSnapshotFile(file).fetch());
+    }
+
+    /**
+     * Test a snapshot file with an opening day outside Monday to Sunday is rejected as corrupt
+     */
+    @Test
+    public void testSnapshotFileWithInvalidDayIsCorrupt(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("reference.bin");
+        writeSnapshotHeader(file, out -> {
+            out.writeInt(1);
+            out.writeInt(-1);
+            out.writeDouble(restaurant.location().lng());
+            out.writeDouble(restaurant.location().lat());
+            out.writeInt(1);
+            out.writeByte(7);
+            out.writeInt(-1);
+            out.writeInt(0);
+            out.writeBoolean(false);
+        });
+
+        assertThrows(IllegalStateException.class, () -> new ReferenceSnapshotFile(file).fetch());
+    }
+
+    /**
+     * Write a snapshot file with a valid header followed by the given body
+     */
+    private static void writeSnapshotHeader(Path file, SnapshotBody body) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0x505A4453);
+            out.writeInt(1);
+            body.write(out);
+        }
+    }
+
+    private interface SnapshotBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Test a restarted loader serves the data kept in the snapshot file while the REST API is down
+     */
+    @Test
+    public void testRestoreFromSnapshotFileOffline(@TempDir Path directory) {
+        Path file = directory.resolve("reference.bin");
+
+        RetrieveAPIService onlineService = mock(RetrieveAPIService.class);
+        when(onlineService.fetchRestaurants()).thenReturn(List.of(restaurant));
+        when(onlineService.fetchCentralArea()).thenReturn(centralArea);
+        assertTrue(new ReferenceDataLoader(new HttpReferenceDataSource(onlineService),
+                new ReferenceSnapshotFile(file)).refresh());
+
+        RetrieveAPIService offlineService = mock(RetrieveAPIService.class);
+        when(offlineService.fetchRestaurants()).thenThrow(new IllegalStateException("upstream down"));
+        ReferenceDataLoader restarted = new ReferenceDataLoader(new HttpReferenceDataSource(offlineService),
+                new ReferenceSnapshotFile(file));
+
+        ReferenceSnapshot snapshot = restarted.getSnapshot();
+        assertNotNull(snapshot.findRestaurant("R1: Margarita"));
+        assertEquals(centralArea, snapshot.centralArea());
+    }
+}
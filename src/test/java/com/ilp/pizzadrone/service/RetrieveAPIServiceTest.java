@@ -0,0 +1,202 @@
+package com.ilp.pizzadrone.service;
+
+import com.ilp.pizzadrone.config.AppConfig;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.util.CircuitBreakerOpenException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the REST API client, run against a local stub server
+ */
+public class RetrieveAPIServiceTest {
+
+    private static final String RESTAURANTS_JSON = "[{\"name\": \"Civerinos Slice\"," +
+            "\"location\": {\"lng\": -3.1912869215011597, \"lat\": 55.945535152517735}," +
+            "\"openingDays\": [\"MONDAY\", \"TUESDAY\"]," +
+            "\"menu\": [{\"name\": \"R1: Margarita\", \"priceInPence\": 1000}]}]";
+
+    private static final String CENTRAL_AREA_JSON = "{\"name\": \"central\", \"vertices\": [" +
+            "{\"lng\": -3.192473, \"lat\": 55.946233}, {\"lng\": -3.192473, \"lat\": 55.942617}," +
+            "{\"lng\": -3.184319, \"lat\": 55.942617}, {\"lng\": -3.184319, \"lat\": 55.946233}]}";
+
+    private static final String CENTRAL_AREA_ETAG = "\"central-v1\"";
+
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+    private RetrieveAPIService retrieveAPIService;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        // Restaurants are served gzip-compressed when the client asks for it
+        server.createContext("/restaurants", exchange -> {
+            byte[] body = RESTAURANTS_JSON.getBytes(StandardCharsets.UTF_8);
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        // The central area is revalidated with its entity tag
+        server.createContext("/centralArea", exchange -> {
+            exchange.getResponseHeaders().set("ETag", CENTRAL_AREA_ETAG);
+            if (CENTRAL_AREA_ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            byte[] body = CENTRAL_AREA_JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        // A proxy answering 304 even to requests without validators
+        server.createContext("/stale/restaurants", exchange -> {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+        });
+
+        // No-fly zones never answer in time
+        server.createContext("/noFlyZones", exchange -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        // Slow handlers must not hold up the others
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        retrieveAPIService = new RetrieveAPIService(
+                new AppConfig().restTemplate(Duration.ofSeconds(1), Duration.ofMillis(300)), baseUrl,
+                2, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Test a gzip-compressed response is decompressed and parsed
+     */
+    @Test
+    public void testFetchGzipRestaurants() {
+        List<Restaurant> restaurants = retrieveAPIService.fetchRestaurants();
+
+        assertEquals(1, restaurants.size());
+        assertEquals("Civerinos Slice", restaurants.getFirst().name());
+        assertEquals(1000, restaurants.getFirst().menu()[0].priceInPence());
+    }
+
+    /**
+     * Test an uncompressed response is parsed as before
+     */
+    @Test
+    public void testFetchCentralArea() {
+        NamedRegion centralArea = retrieveAPIService.fetchCentralArea();
+
+        assertEquals("central", centralArea.name());
+        assertEquals(4, centralArea.vertices().size());
+    }
+
+    /**
+     * Test a revalidated response returns the result already fetched without a body
+     */
+    @Test
+    public void testConditionalFetchCentralArea() {
+        NamedRegion first = retrieveAPIService.fetchCentralArea();
+        NamedRegion second = retrieveAPIService.fetchCentralArea();
+
+        assertEquals(1, notModifiedCount.get());
+        assertSame(first, second);
+    }
+
+    /**
+     * Test a 304 Not Modified with no earlier result fails instead of returning no restaurants
+     */
+    @Test
+    public void testNotModifiedWithoutCachedResultFails() {
+        RetrieveAPIService staleService = new RetrieveAPIService(
+                new AppConfig().restTemplate(Duration.ofSeconds(1), Duration.ofMillis(300)), baseUrl + "/stale",
+                2, Duration.ofMinutes(1));
+
+        assertThrows(RestClientException.class, staleService::fetchRestaurants);
+    }
+
+    /**
+     * Test a response without validators is fetched in full every time
+     */
+    @Test
+    public void testUnconditionalFetchRestaurants() {
+        List<Restaurant> first = retrieveAPIService.fetchRestaurants();
+        List<Restaurant> second = retrieveAPIService.fetchRestaurants();
+
+        assertNotSame(first, second);
+        assertEquals(first.getFirst().name(), second.getFirst().name());
+    }
+
+    /**
+     * Test a slow upstream fails after the read timeout instead of blocking
+     */
+    @Test
+    public void testReadTimeout() {
+        long startNs = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> retrieveAPIService.fetchNoFlyZones());
+        assertTrue(System.nanoTime() - startNs < 1_500_000_000L, "Request should time out after the read timeout");
+    }
+
+    /**
+     * Test a failing endpoint fails fast once its circuit breaker is open, while other endpoints still work
+     */
+    @Test
+    public void testCircuitBreakerFailsFast() {
+        assertThrows(ResourceAccessException.class, () -> retrieveAPIService.fetchNoFlyZones());
+        assertThrows(ResourceAccessException.class, () -> retrieveAPIService.fetchNoFlyZones());
+
+        long startNs = System.nanoTime();
+        assertThrows(CircuitBreakerOpenException.class, () -> retrieveAPIService.fetchNoFlyZones());
+        assertTrue(System.nanoTime() - startNs < 100_000_000L, "An open breaker should not wait for the upstream");
+
+        assertEquals("central", retrieveAPIService.fetchCentralArea().name());
+    }
+}
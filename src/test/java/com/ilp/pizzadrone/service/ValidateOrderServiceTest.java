@@ -35,6 +35,9 @@ public class ValidateOrderServiceTest {
         @Autowired
         private MockMvc mockMvc;
 
+        @Autowired
+        private ReferenceDataLoader referenceDataLoader;
+
         @MockBean
         private RetrieveAPIService retrieveAPIService;
 
@@ -61,6 +64,7 @@ public class ValidateOrderServiceTest {
                                 });
 
                 when(retrieveAPIService.fetchRestaurants()).thenReturn(List.of(r1, r2));
+                referenceDataLoader.refresh();
         }
 
         /**
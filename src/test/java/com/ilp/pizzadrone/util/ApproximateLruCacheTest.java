@@ -0,0 +1,50 @@
+package com.ilp.pizzadrone.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the approximate LRU cache
+ */
+public class ApproximateLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ApproximateLruCache<Integer, String> cache = new ApproximateLruCache<>(20, now::incrementAndGet);
+
+    /**
+     * Test the cache stays bounded and drops the least recently used entries first
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "value" + i);
+        }
+        // Entries 0 and 1 are used again, so they are now the most recently used
+        assertEquals("value0", cache.get(0));
+        assertEquals("value1", cache.get(1));
+
+        cache.put(20, "value20");
+
+        assertTrue(cache.size() <= 20);
+        assertEquals("value0", cache.get(0));
+        assertEquals("value1", cache.get(1));
+        assertEquals("value20", cache.get(20));
+        assertNull(cache.get(2));
+        assertNull(cache.get(3));
+    }
+
+    /**
+     * Test a cache with no room keeps nothing
+     */
+    @Test
+    public void testZeroSizeKeepsNothing() {
+        ApproximateLruCache<Integer, String> disabled = new ApproximateLruCache<>(0);
+        disabled.put(1, "value1");
+
+        assertNull(disabled.get(1));
+        assertEquals(0, disabled.size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reference decoder for the binary flight path format written by BinaryPathEncoder.
+ * Fleet controllers can use it as a template for their own client.
+ */
+public class BinaryPathDecoder {
+
+    /**
+     * Decode a flight path without a length prefix
+     * @param encoded the encoded path
+     * @return the flight path as a list of LngLat, rounded to the fixed-point precision
+     */
+    public static List<LngLat> decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        List<LngLat> flightPath = new ArrayList<>();
+        long lng = 0;
+        long lat = 0;
+        while (buffer.hasRemaining()) {
+            lng += unZigZag(readVarint(buffer));
+            lat += unZigZag(readVarint(buffer));
+            flightPath.add(new LngLat(lng / BinaryPathEncoder.COORDINATE_SCALE, lat / BinaryPathEncoder.COORDINATE_SCALE));
+        }
+        return flightPath;
+    }
+
+    /**
+     * Decode one length-prefixed flight path from a buffer, leaving the buffer after its last point
+     * @param buffer the buffer positioned at the length prefix
+     * @return the flight path as a list of LngLat, rounded to the fixed-point precision
+     */
+    public static List<LngLat> decodeLengthPrefixed(ByteBuffer buffer) {
+        int count = (int) readVarint(buffer);
+        List<LngLat> flightPath = new ArrayList<>(count);
+        long lng = 0;
+        long lat = 0;
+        for (int i = 0; i < count; i++) {
+            lng += unZigZag(readVarint(buffer));
+            lat += unZigZag(readVarint(buffer));
+            flightPath.add(new LngLat(lng / BinaryPathEncoder.COORDINATE_SCALE, lat / BinaryPathEncoder.COORDINATE_SCALE));
+        }
+        return flightPath;
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.NamedRegion;
+import com.ilp.pizzadrone.service.DistanceService;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LAT;
+import static com.ilp.pizzadrone.constant.SystemConstants.APPLETON_LNG;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the binary flight path encoding
+ */
+public class BinaryPathEncoderTest {
+
+    private final List<LngLat> flyPath = new CalcPathUtils(new DistanceService()).calculatePath(
+            new LngLat(-3.1912869215011597, 55.945535152517735),
+            new LngLat(APPLETON_LNG, APPLETON_LAT),
+            List.<NamedRegion>of(), null);
+
+    /**
+     * Test the decoded path matches the original path within the fixed-point precision
+     */
+    @Test
+    public void testRoundTrip() {
+        byte[] encoded = BinaryPathEncoder.encode(flyPath, false);
+        List<LngLat> decoded = BinaryPathDecoder.decode(encoded);
+
+        assertEquals(flyPath.size(), decoded.size());
+        for (int i = 0; i < flyPath.size(); i++) {
+            assertEquals(flyPath.get(i).lng(), decoded.get(i).lng(), 1 / BinaryPathEncoder.COORDINATE_SCALE);
+            assertEquals(flyPath.get(i).lat(), decoded.get(i).lat(), 1 / BinaryPathEncoder.COORDINATE_SCALE);
+        }
+
+        // Every step after the first point takes at most two bytes per coordinate
+        assertTrue(encoded.length <= 10 + (flyPath.size() - 1) * 4, "Encoded path is larger than expected");
+    }
+
+    /**
+     * Test several length-prefixed paths can be read back from one stream
+     */
+    @Test
+    public void testLengthPrefixedPaths() {
+        byte[] first = BinaryPathEncoder.encode(flyPath, true);
+        byte[] second = BinaryPathEncoder.encode(List.of(new LngLat(APPLETON_LNG, APPLETON_LAT)), true);
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second).flip();
+
+        assertEquals(flyPath.size(), BinaryPathDecoder.decodeLengthPrefixed(buffer).size());
+        assertEquals(List.of(new LngLat(APPLETON_LNG, APPLETON_LAT)), BinaryPathDecoder.decodeLengthPrefixed(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+}
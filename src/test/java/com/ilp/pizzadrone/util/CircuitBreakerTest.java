@@ -0,0 +1,91 @@
+package com.ilp.pizzadrone.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the circuit breaker state transitions
+ */
+public class CircuitBreakerTest {
+
+    private final AtomicLong nowNs = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofSeconds(10), nowNs::get);
+
+    private String fail() {
+        throw new IllegalStateException("upstream down");
+    }
+
+    /**
+     * Test the breaker opens after the threshold and fails fast without making the call
+     */
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertThrows(CircuitBreakerOpenException.class, () -> breaker.call(() -> "not called"));
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    /**
+     * Test a success resets the consecutive failure count
+     */
+    @Test
+    public void testSuccessResetsFailures() {
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertEquals("ok", breaker.call(() -> "ok"));
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Test a successful probe after the open duration closes the breaker
+     */
+    @Test
+    public void testHalfOpenProbeCloses() {
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+
+        nowNs.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals("ok", breaker.call(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    /**
+     * Test a failed probe opens the breaker again straight away
+     */
+    @Test
+    public void testHalfOpenProbeReopens() {
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+
+        nowNs.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitBreakerOpenException.class, () -> breaker.call(() -> "not called"));
+    }
+
+    /**
+     * Test only one probe is let through while half-open
+     */
+    @Test
+    public void testSingleProbeWhileHalfOpen() {
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        assertThrows(IllegalStateException.class, () -> breaker.call(this::fail));
+        nowNs.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        String result = breaker.call(() -> {
+            assertThrows(CircuitBreakerOpenException.class, () -> breaker.call(() -> "second probe"));
+            return "first probe";
+        });
+        assertEquals("first probe", result);
+    }
+}
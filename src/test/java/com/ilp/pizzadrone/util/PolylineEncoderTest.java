@@ -0,0 +1,35 @@
+package com.ilp.pizzadrone.util;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test class for the encoded polyline output
+ */
+public class PolylineEncoderTest {
+
+    /**
+     * Test the encoder against the example from the polyline algorithm documentation
+     */
+    @Test
+    public void testEncodeReferenceExample() {
+        List<LngLat> points = List.of(
+                new LngLat(-120.2, 38.5),
+                new LngLat(-120.95, 40.7),
+                new LngLat(-126.453, 43.252));
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", PolylineEncoder.encode(points));
+    }
+
+    /**
+     * Test an empty path encodes to an empty polyline
+     */
+    @Test
+    public void testEncodeEmptyPath() {
+        assertEquals("", PolylineEncoder.encode(List.of()));
+    }
+}
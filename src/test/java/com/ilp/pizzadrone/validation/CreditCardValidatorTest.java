@@ -0,0 +1,123 @@
+package com.ilp.pizzadrone.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property tests for the credit card checks.
+ * Each check is compared with the regular expression based check it replaced, on exhaustive and random inputs.
+ */
+public class CreditCardValidatorTest {
+
+    // Digits, the separator, letters, whitespace and non-ASCII digits which \d does not match
+    private static final char[] ALPHABET = "0123456789/ -aZ٣１".toCharArray();
+
+    private final CreditCardValidator creditCardValidator = new CreditCardValidator();
+
+    /**
+     * The expiry date check before it was rewritten
+     */
+    private static boolean referenceIsValidExpiryDate(String expiryDate, LocalDate orderDate) {
+        if (!expiryDate.matches("\\d{2}/\\d{2}")) {
+            return false;
+        }
+
+        String[] parts = expiryDate.split("/");
+        int month = Integer.parseInt(parts[0]);
+        int year = Integer.parseInt(parts[1]) + 2000;
+
+        if (month < 1 || month > 12) return false;
+
+        LocalDate expiry = LocalDate.of(year, month, 1).withDayOfMonth(1).plusMonths(1);
+        return expiry.isAfter(orderDate);
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            // Mostly digits, so the lengths around the valid ones are well covered
+            chars[i] = random.nextInt(4) == 0
+                    ? ALPHABET[random.nextInt(ALPHABET.length)]
+                    : (char) ('0' + random.nextInt(10));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Test the card number check agrees with \d{16} on random strings
+     */
+    @Test
+    public void testCardNumberMatchesRegex() {
+        Random random = new Random(48);
+        for (int i = 0; i < 100_000; i++) {
+            String cardNumber = randomString(random, 20);
+            assertEquals(cardNumber.matches("\\d{16}"), creditCardValidator.isValidCardNumber(cardNumber), cardNumber);
+        }
+    }
+
+    /**
+     * Test the CVV check agrees with \d{3} on random strings
+     */
+    @Test
+    public void testCvvMatchesRegex() {
+        Random random = new Random(48);
+        for (int i = 0; i < 100_000; i++) {
+            String cvv = randomString(random, 5);
+            assertEquals(cvv.matches("\\d{3}"), creditCardValidator.isValidCvv(cvv), cvv);
+        }
+    }
+
+    /**
+     * Test the expiry date check agrees with the previous check for every MM/YY and order dates around it
+     */
+    @Test
+    public void testExpiryDateMatchesReferenceExhaustively() {
+        LocalDate[] orderDates = {
+                LocalDate.of(1999, 12, 31), LocalDate.of(2000, 1, 1), LocalDate.of(2024, 2, 29),
+                LocalDate.of(2024, 11, 23), LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30),
+                LocalDate.of(2025, 7, 1), LocalDate.of(2099, 12, 31), LocalDate.of(2100, 1, 1)
+        };
+        for (int month = 0; month < 100; month++) {
+            for (int year = 0; year < 100; year++) {
+                String expiryDate = String.format("%02d/%02d", month, year);
+                for (LocalDate orderDate : orderDates) {
+                    assertEquals(referenceIsValidExpiryDate(expiryDate, orderDate),
+                            creditCardValidator.isValidExpiryDate(expiryDate, orderDate),
+                            expiryDate + " on " + orderDate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test the expiry date check agrees with the previous check on random strings and order dates
+     */
+    @Test
+    public void testExpiryDateMatchesReferenceOnRandomInput() {
+        Random random = new Random(48);
+        LocalDate first = LocalDate.of(1998, 1, 1);
+        for (int i = 0; i < 100_000; i++) {
+            String expiryDate = random.nextBoolean()
+                    ? randomString(random, 6)
+                    : String.format("%02d/%02d", random.nextInt(14), random.nextInt(100));
+            LocalDate orderDate = first.plusDays(random.nextInt(110 * 366));
+            assertEquals(referenceIsValidExpiryDate(expiryDate, orderDate),
+                    creditCardValidator.isValidExpiryDate(expiryDate, orderDate),
+                    expiryDate + " on " + orderDate);
+        }
+    }
+
+    /**
+     * Test missing card details are invalid
+     */
+    @Test
+    public void testNullIsInvalid() {
+        assertFalse(creditCardValidator.isValidCardNumber(null));
+        assertFalse(creditCardValidator.isValidCvv(null));
+        assertFalse(creditCardValidator.isValidExpiryDate(null, LocalDate.of(2024, 11, 23)));
+    }
+}
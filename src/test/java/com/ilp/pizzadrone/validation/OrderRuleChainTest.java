@@ -0,0 +1,160 @@
+package com.ilp.pizzadrone.validation;
+
+import com.ilp.pizzadrone.constant.OrderValidationCode;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.model.OrderContext;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the order validation rule chain
+ */
+public class OrderRuleChainTest {
+
+    private static final OrderValidationCode[] CODES = {
+            OrderValidationCode.EMPTY_ORDER, OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED,
+            OrderValidationCode.PIZZA_NOT_DEFINED, OrderValidationCode.TOTAL_INCORRECT,
+            OrderValidationCode.CARD_NUMBER_INVALID, OrderValidationCode.CVV_INVALID
+    };
+
+    private final OrderContext orderContext =
+            OrderContext.of(new Order(), ReferenceSnapshot.of(1, List.of(), List.of(), null));
+
+    /**
+     * Create rules in the order of CODES, failing when the matching entry of the failures is set
+     */
+    private static List<OrderRule> rules(boolean[] failures, AtomicInteger runs) {
+        List<OrderRule> rules = new ArrayList<>();
+        for (int i = 0; i < CODES.length; i++) {
+            int rule = i;
+            Function<OrderContext, OrderValidationCode> check = context -> {
+                runs.incrementAndGet();
+                return failures[rule] ? CODES[rule] : OrderValidationCode.NO_ERROR;
+            };
+            rules.add(rule == 0 ? OrderRule.guard("rule" + rule, check) : OrderRule.of("rule" + rule, check));
+        }
+        return rules;
+    }
+
+    /**
+     * Test the reported code is the code of the first failing rule in precedence order,
+     * whatever order the rules run in
+     */
+    @Test
+    public void testReportedCodeKeepsPrecedence() {
+        Random random = new Random(49);
+        boolean[] failures = new boolean[CODES.length];
+        OrderRuleChain chain = new OrderRuleChain(rules(failures, new AtomicInteger()));
+
+        for (int i = 0; i < 50_000; i++) {
+            // Later rules fail more often, so they move to the front
+            for (int rule = 0; rule < failures.length; rule++) {
+                failures[rule] = random.nextInt(100) < rule * 10;
+            }
+            if (i % 1000 == 0) {
+                chain.reorder();
+            }
+
+            OrderValidationCode expected = OrderValidationCode.NO_ERROR;
+            for (int rule = 0; rule < failures.length; rule++) {
+                if (failures[rule]) {
+                    expected = CODES[rule];
+                    break;
+                }
+            }
+            assertEquals(expected, chain.check(orderContext));
+        }
+    }
+
+    /**
+     * Test a rule which often rejects runs first once it has been observed
+     */
+    @Test
+    public void testHighRejectionRuleRunsFirst() {
+        boolean[] failures = new boolean[CODES.length];
+        failures[CODES.length - 1] = true;
+        AtomicInteger runs = new AtomicInteger();
+        OrderRuleChain chain = new OrderRuleChain(rules(failures, runs));
+
+        for (int i = 0; i < 1000; i++) {
+            chain.check(orderContext);
+        }
+        chain.reorder();
+        assertEquals("rule" + (CODES.length - 1), chain.getEvaluationOrder().getFirst());
+
+        // The failing rule still has to be confirmed by every rule before it
+        runs.set(0);
+        assertEquals(CODES[CODES.length - 1], chain.check(orderContext));
+        assertEquals(CODES.length, runs.get());
+    }
+
+    /**
+     * Test the rules with a lower precedence than a failing rule are not run
+     */
+    @Test
+    public void testRulesAfterFailureAreSkipped() {
+        boolean[] failures = new boolean[CODES.length];
+        failures[1] = true;
+        failures[CODES.length - 1] = true;
+        AtomicInteger runs = new AtomicInteger();
+        OrderRuleChain chain = new OrderRuleChain(rules(failures, runs));
+
+        // A new chain runs the rules in precedence order, so only the guard and the first failing rule run
+        assertEquals(CODES[1], chain.check(orderContext));
+        assertEquals(2, runs.get());
+    }
+
+    /**
+     * Test a failing guard is reported without running any other rule
+     */
+    @Test
+    public void testGuardRunsFirst() {
+        boolean[] failures = new boolean[CODES.length];
+        Arrays.fill(failures, true);
+        AtomicInteger runs = new AtomicInteger();
+        OrderRuleChain chain = new OrderRuleChain(rules(failures, runs));
+
+        assertEquals(OrderValidationCode.EMPTY_ORDER, chain.check(orderContext));
+        assertEquals(1, runs.get());
+        assertEquals(1, chain.getStats().getFirst().getRejections());
+    }
+
+    /**
+     * Test an unrecorded check reports the same code without changing the statistics or the evaluation order
+     */
+    @Test
+    public void testUnrecordedCheckLeavesStatistics() {
+        boolean[] failures = new boolean[CODES.length];
+        failures[CODES.length - 1] = true;
+        OrderRuleChain chain = new OrderRuleChain(rules(failures, new AtomicInteger()));
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(CODES[CODES.length - 1], chain.checkUnrecorded(orderContext));
+        }
+        chain.reorder();
+
+        assertEquals("rule1", chain.getEvaluationOrder().getFirst());
+        for (OrderRuleChain.RuleStats stats : chain.getStats()) {
+            assertEquals(0, stats.getEvaluations());
+        }
+    }
+
+    /**
+     * Test guards must come before the other rules
+     */
+    @Test
+    public void testGuardAfterRuleIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderRuleChain(List.of(
+                OrderRule.of("rule", context -> OrderValidationCode.NO_ERROR),
+                OrderRule.guard("guard", context -> OrderValidationCode.NO_ERROR))));
+    }
+}
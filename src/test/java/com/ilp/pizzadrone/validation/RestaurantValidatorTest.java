@@ -0,0 +1,86 @@
+package com.ilp.pizzadrone.validation;
+
+import com.ilp.pizzadrone.dto.LngLat;
+import com.ilp.pizzadrone.dto.Order;
+import com.ilp.pizzadrone.dto.Pizza;
+import com.ilp.pizzadrone.dto.Restaurant;
+import com.ilp.pizzadrone.model.OrderContext;
+import com.ilp.pizzadrone.model.ReferenceSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the opening day checks against the snapshot bitmasks
+ */
+public class RestaurantValidatorTest {
+
+    private final RestaurantValidator restaurantValidator = new RestaurantValidator();
+
+    private static Restaurant restaurant(String name, DayOfWeek... openingDays) {
+        return new Restaurant(name, new LngLat(0.0, 0.0), openingDays,
+                new Pizza[] { new Pizza(name + ": Margarita", 1000), new Pizza("Shared", 1200) });
+    }
+
+    private static OrderContext context(ReferenceSnapshot snapshot, String pizzaName) {
+        Order order = new Order();
+        order.setPizzasInOrder(new Pizza[] { new Pizza(pizzaName, 1000) });
+        return OrderContext.of(order, snapshot);
+    }
+
+    /**
+     * Test the bitmask check agrees with searching the opening days for every subset of days
+     */
+    @Test
+    public void testOpenMatchesOpeningDays() {
+        DayOfWeek[] days = DayOfWeek.values();
+        for (int subset = 0; subset < 1 << days.length; subset++) {
+            final int mask = subset;
+            DayOfWeek[] openingDays = Arrays.stream(days)
+                    .filter(day -> (mask & ReferenceSnapshot.dayBit(day)) != 0)
+                    .toArray(DayOfWeek[]::new);
+            ReferenceSnapshot snapshot = ReferenceSnapshot.of(1, List.of(restaurant("R1", openingDays)), List.of(), null);
+            OrderContext orderContext = context(snapshot, "R1: Margarita");
+
+            for (DayOfWeek day : days) {
+                assertEquals(Arrays.asList(openingDays).contains(day),
+                        restaurantValidator.isRestaurantOpen(orderContext, day));
+            }
+        }
+    }
+
+    /**
+     * Test an order with no known restaurant is never open
+     */
+    @Test
+    public void testUnknownRestaurantIsClosed() {
+        ReferenceSnapshot snapshot = ReferenceSnapshot.of(1,
+                List.of(restaurant("R1", DayOfWeek.values())), List.of(), null);
+
+        assertFalse(restaurantValidator.isRestaurantOpen(context(snapshot, "Unknown"), DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Test the per-day indexes list the open restaurants,
+     * and a pizza only for the restaurant the menu index resolves it to
+     */
+    @Test
+    public void testPerDayIndexes() {
+        Restaurant weekdays = restaurant("R1", DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        Restaurant everyDay = restaurant("R2", DayOfWeek.values());
+        ReferenceSnapshot snapshot = ReferenceSnapshot.of(1, List.of(weekdays, everyDay), List.of(), null);
+
+        assertEquals(List.of(weekdays, everyDay), snapshot.getOpenRestaurants(DayOfWeek.MONDAY));
+        assertEquals(List.of(everyDay), snapshot.getOpenRestaurants(DayOfWeek.SUNDAY));
+
+        // "Shared" resolves to R1, so it cannot be ordered while R1 is closed
+        assertEquals(List.of("R1: Margarita", "Shared", "R2: Margarita"),
+                snapshot.getOrderablePizzas(DayOfWeek.MONDAY).stream().map(Pizza::name).toList());
+        assertEquals(List.of("R2: Margarita"),
+                snapshot.getOrderablePizzas(DayOfWeek.SUNDAY).stream().map(Pizza::name).toList());
+    }
+}